@@ -0,0 +1,137 @@
+package quizapp.bench;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import quizapp.network.BufferPool;
+import quizapp.network.FrameChannel;
+import quizapp.network.FrameViews;
+import quizapp.network.Message;
+import quizapp.network.MessageType;
+
+/**
+ * Checks that keep-alive and answer frames are written and read without
+ * allocating once the JIT has warmed up.
+ *
+ * Sends alternating keep-alive and answer frames over a loopback socket,
+ * written the way GameClient writes them and read the way the server's
+ * client handler reads them: a non-blocking FrameChannel parked on the
+ * shared read poller, dispatching on the type byte into reusable views.
+ * The first half of the frames is warm-up. Over the second half it counts
+ * the bytes each thread allocated, using the JVM's per-thread allocation
+ * counter, and exits with status 1 if either side allocated per frame.
+ *
+ * Parking on the poller goes through the JDK selector's key update queue,
+ * which now and then allocates a few hundred bytes once in a run, when it
+ * grows. A blocking reader allocates nothing at all, so up to
+ * MAX_ONE_OFF_BYTES over the whole run is accepted; anything allocated per
+ * frame is far more than that.
+ *
+ * With "messages" both sides build and decode a Message per frame instead,
+ * as they did before the views, which shows what a failing run looks like.
+ *
+ * Usage: HotPathAllocationCheck [frames] [views|messages]
+ */
+public final class HotPathAllocationCheck {
+
+    private static final long MAX_ONE_OFF_BYTES = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 400_000;
+        boolean messages = args.length > 1 && args[1].equals("messages");
+        int warmUp = frames / 2;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        ServerSocketChannel listener = ServerSocketChannel.open();
+        listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        FrameChannel writer = new FrameChannel(SocketChannel.open(listener.getLocalAddress()), BufferPool.SHARED);
+        FrameChannel reader = new FrameChannel(listener.accept(), BufferPool.SHARED);
+        reader.setNonBlocking();
+
+        long[] readAllocated = new long[1];
+        long[] checksum = new long[1];
+        Thread readThread = new Thread(() -> {
+            FrameViews.AnswerView answerView = new FrameViews.AnswerView();
+            FrameViews.KeepAliveView keepAliveView = new FrameViews.KeepAliveView();
+            long sum = 0;
+            long start = 0;
+            try {
+                for (int i = 0; i < frames; i++) {
+                    if (i == warmUp) {
+                        start = threads.getCurrentThreadAllocatedBytes();
+                    }
+                    if (messages) {
+                        Message message = reader.read();
+                        sum += message.getType() == MessageType.ANSWER
+                                ? message.getQuestionNumber() + message.getAnswerIndex()
+                                : message.getEchoTimestamp();
+                        continue;
+                    }
+                    ByteBuffer frame = reader.nextFrame();
+                    MessageType type = FrameViews.typeOf(frame);
+                    if (type == MessageType.ANSWER) {
+                        answerView.wrap(frame);
+                        sum += answerView.getQuestionNumber() + answerView.getAnswerIndex();
+                    } else if (type == MessageType.KEEP_ALIVE) {
+                        sum += keepAliveView.wrap(frame).getEchoTimestamp();
+                    } else {
+                        throw new IllegalStateException("Unexpected frame " + type);
+                    }
+                }
+                readAllocated[0] = threads.getCurrentThreadAllocatedBytes() - start;
+                checksum[0] = sum;
+            } catch (Exception e) {
+                readAllocated[0] = -1;
+                e.printStackTrace();
+            }
+        }, "allocation-reader");
+        readThread.start();
+
+        long writeStart = 0;
+        for (int i = 0; i < frames; i++) {
+            if (i == warmUp) {
+                writeStart = threads.getCurrentThreadAllocatedBytes();
+            }
+            if (messages) {
+                writer.write(message(i));
+            } else if ((i & 1) == 0) {
+                writer.writeKeepAlive(i);
+            } else {
+                writer.writeAnswer(i % 20 + 1, i % 4, i);
+            }
+        }
+        long writeAllocated = threads.getCurrentThreadAllocatedBytes() - writeStart;
+        readThread.join();
+        writer.close();
+        reader.close();
+        listener.close();
+
+        int measured = frames - warmUp;
+        System.out.printf("frames=%d measured=%d mode=%s (keep-alive and answer alternating), checksum %d%n",
+                frames, measured, messages ? "messages" : "views", checksum[0]);
+        System.out.printf("write side: %d bytes allocated, %.3f per frame%n", writeAllocated,
+                (double) writeAllocated / measured);
+        System.out.printf("read side:  %d bytes allocated, %.3f per frame%n", readAllocated[0],
+                (double) readAllocated[0] / measured);
+        boolean passed = writeAllocated >= 0 && writeAllocated <= MAX_ONE_OFF_BYTES
+                && readAllocated[0] >= 0 && readAllocated[0] <= MAX_ONE_OFF_BYTES;
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static Message message(int i) {
+        if ((i & 1) == 0) {
+            Message keepAlive = new Message(MessageType.KEEP_ALIVE);
+            keepAlive.setEchoTimestamp(i);
+            return keepAlive;
+        }
+        Message answer = new Message(MessageType.ANSWER);
+        answer.setQuestionNumber(i % 20 + 1);
+        answer.setAnswerIndex(i % 4);
+        return answer;
+    }
+}
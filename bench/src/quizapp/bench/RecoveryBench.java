@@ -0,0 +1,85 @@
+package quizapp.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.network.RoomStateStore;
+import quizapp.util.Log;
+
+/**
+ * Measures how long it takes to rebuild a room from its recovery files.
+ *
+ * Writes a snapshot of a room with the given number of players, then a
+ * write-ahead log with one score record per player per question for the
+ * given number of questions, which is what piles up when answers keep
+ * coming in between two snapshots. It then loads the room back the way a
+ * restarted host does and prints the load time, first on a cold JVM and
+ * then the median of the following runs. The state is written to
+ * recovery/ in the working directory and removed at the end.
+ *
+ * Usage: RecoveryBench [players] [questionsLogged] [runs]
+ */
+public final class RecoveryBench {
+
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int questionsLogged = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        Log.setLevel(Log.Level.WARN);
+
+        Quiz quiz = new Quiz();
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            questions.add(new Question("Question " + (i + 1), new String[]{"a", "b", "c", "d"}, i % 4, 20));
+        }
+        quiz.setQuestions(questions);
+        quiz.currentQuestionIndex = 5;
+        List<Player> roster = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            Player player = new Player("player-" + i);
+            player.setSlot(i);
+            player.setCorrectAnswers(i % 6);
+            player.setScore((i % 6) * 150);
+            roster.add(player);
+        }
+
+        RoomStateStore store = new RoomStateStore(quiz.roomCode);
+        long writeStart = System.nanoTime();
+        store.writeSnapshot(quiz, () -> roster);
+        long snapshotNanos = System.nanoTime() - writeStart;
+        for (int q = 0; q < questionsLogged; q++) {
+            store.logQuestion(quiz.currentQuestionIndex + q + 1);
+            for (Player player : roster) {
+                player.incrementCorrectAnswers();
+                player.addScore(200);
+                store.logScore(player.getName(), player.getCorrectAnswers(), player.getScore());
+            }
+        }
+        store.close();
+
+        long[] loadNanos = new long[runs];
+        int recovered = 0;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            RoomStateStore.RecoveredRoom room = new RoomStateStore(quiz.roomCode).load();
+            loadNanos[i] = System.nanoTime() - start;
+            recovered = room.getPlayers().size();
+            Player last = room.getPlayers().get("player-" + (players - 1));
+            if (last == null || last.getScore() != roster.get(players - 1).getScore()) {
+                throw new IllegalStateException("Recovered score does not match the log");
+            }
+        }
+        new RoomStateStore(quiz.roomCode).discard();
+
+        long[] warm = Arrays.copyOfRange(loadNanos, 1, runs);
+        Arrays.sort(warm);
+        System.out.printf("players=%d walRecords=%d snapshotWrite=%.1f ms%n", players,
+                questionsLogged * (players + 1), snapshotNanos / 1e6);
+        System.out.printf("recovered %d players: cold load %.1f ms, warm median %.1f ms%n", recovered,
+                loadNanos[0] / 1e6, warm.length > 0 ? warm[warm.length / 2] / 1e6 : Double.NaN);
+        Log.flush(500);
+    }
+}
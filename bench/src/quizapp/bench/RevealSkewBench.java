@@ -0,0 +1,318 @@
+package quizapp.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.network.BufferPool;
+import quizapp.network.FrameViews;
+import quizapp.network.GameServer;
+import quizapp.network.Message;
+import quizapp.network.MessageCodec;
+import quizapp.network.MessageType;
+import quizapp.network.PooledBuffer;
+import quizapp.util.LatencySketch;
+import quizapp.util.Log;
+
+/**
+ * Measures reveal skew, the time between the first and the last client
+ * receiving the same QUESTION frame, in a room of many players.
+ *
+ * The server runs in this process and the players in a child process, so
+ * the two do not share a file descriptor limit. The child holds every
+ * connection on one selector thread, answers each question a fixed delay
+ * after it arrives and echoes keep-alives, like a real client would. With
+ * a delay of 0 every answer comes straight back and competes with the rest
+ * of the reveal for the server's CPU, which is the worst case. Both sides
+ * stamp with System.nanoTime(), which is the same monotonic clock in every
+ * process on Linux, so the child can time each arrival against the
+ * QUESTION's trace ID, which is the server's reveal time. It prints, per
+ * question, when the first, median, 99th percentile and last player had
+ * the whole frame; the skew is last minus first. The server's own skew,
+ * first to last write, is printed at the end.
+ *
+ * Usage: RevealSkewBench [players] [questions] [answerDelayMillis]
+ */
+public final class RevealSkewBench {
+
+    private static final int QUESTION_SECONDS = 4;
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int JOINS_PER_ROUND = 20;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--players")) {
+            runPlayers(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                    Long.parseLong(args[5]));
+            return;
+        }
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long answerDelayMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        Log.setLevel(Log.Level.WARN);
+
+        Quiz quiz = new Quiz();
+        List<Question> list = new ArrayList<>();
+        for (int i = 0; i < questions; i++) {
+            list.add(new Question("Question " + (i + 1), new String[]{"a", "b", "c", "d"}, i % 4, QUESTION_SECONDS));
+        }
+        quiz.setQuestions(list);
+        GameServer server = new GameServer(quiz, quiz.roomCode, 0);
+        server.start();
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process child = new ProcessBuilder(java, "-Xss256k", "-cp", System.getProperty("java.class.path"),
+                RevealSkewBench.class.getName(), "--players", quiz.roomCode,
+                Integer.toString(server.getPort()), Integer.toString(players), Integer.toString(questions),
+                Long.toString(answerDelayMillis))
+                .inheritIO()
+                .start();
+
+        long joinStart = System.nanoTime();
+        while (server.getPlayerCount() < players) {
+            if (!child.isAlive()) {
+                throw new IllegalStateException("Player process exited early");
+            }
+            Thread.sleep(100);
+        }
+        System.out.printf("players=%d answerDelay=%d ms joined in %.1f s%n", players, answerDelayMillis,
+                (System.nanoTime() - joinStart) / 1e9);
+        // Let the join traffic settle before the first reveal
+        Thread.sleep(2000);
+        server.startGame();
+        child.waitFor();
+
+        LatencySketch serverSkew = server.getRevealSkew();
+        System.out.printf("server write skew ms: p50=%.1f max=%.1f over %d reveals%n",
+                serverSkew.quantile(0.5) / 1000.0, serverSkew.getMax() / 1000.0, serverSkew.getCount());
+        server.stop();
+        Log.flush(500);
+        System.exit(0);
+    }
+
+    /**
+     * One player connection as seen by the selector loop.
+     */
+    private static final class Player {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        // Bytes left of a frame too big for the buffer, which is dropped
+        int skip;
+
+        Player(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * An answer waiting for its delay to pass.
+     */
+    private static final class PendingAnswer {
+        final Player player;
+        final int questionNumber;
+        final int answerIndex;
+        final long dueNanos;
+
+        PendingAnswer(Player player, int questionNumber, int answerIndex, long dueNanos) {
+            this.player = player;
+            this.questionNumber = questionNumber;
+            this.answerIndex = answerIndex;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    private static void runPlayers(String roomCode, int port, int players, int questions, long answerDelayMillis)
+            throws IOException {
+        Selector selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress("localhost", port);
+        Arrivals arrivals = new Arrivals(questions, players, answerDelayMillis * 1_000_000);
+        int joined = 0;
+        // Keep serving the players already in while the rest join, so none
+        // of them misses its keep-alives
+        while (arrivals.finished < players && (joined < players || !selector.keys().isEmpty())) {
+            if (joined < players) {
+                for (int i = 0; i < JOINS_PER_ROUND && joined < players; i++, joined++) {
+                    join(selector, address, roomCode, "p" + joined);
+                }
+                selector.selectNow();
+            } else {
+                long waitNanos = arrivals.nanosUntilNextAnswer(System.nanoTime());
+                if (waitNanos == Long.MAX_VALUE) {
+                    selector.select();
+                } else if (waitNanos > 0) {
+                    selector.select(Math.max(1, waitNanos / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                arrivals.read(key);
+            }
+            arrivals.sendDueAnswers(System.nanoTime());
+        }
+        arrivals.print();
+    }
+
+    private static void join(Selector selector, InetSocketAddress address, String roomCode, String name)
+            throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        Message join = new Message(MessageType.JOIN);
+        join.setPlayerName(name);
+        join.setRoomCode(roomCode);
+        PooledBuffer frame = MessageCodec.encode(join, BufferPool.SHARED);
+        writeFully(channel, frame.buffer());
+        frame.release();
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Player(channel));
+    }
+
+    /**
+     * What every player saw, filled in by the selector loop.
+     */
+    private static final class Arrivals {
+        // Arrival offsets from the reveal, in nanoseconds, per question
+        final long[][] offsets;
+        final int[] counts;
+        final ByteBuffer out = ByteBuffer.allocate(64);
+        final FrameViews.KeepAliveView keepAlive = new FrameViews.KeepAliveView();
+        // Every answer has the same delay, so they come due in this order
+        final ArrayDeque<PendingAnswer> answers = new ArrayDeque<>();
+        final long answerDelayNanos;
+        int finished;
+
+        Arrivals(int questions, int players, long answerDelayNanos) {
+            offsets = new long[questions][players];
+            counts = new int[questions];
+            this.answerDelayNanos = answerDelayNanos;
+        }
+
+        long nanosUntilNextAnswer(long now) {
+            PendingAnswer next = answers.peek();
+            return next == null ? Long.MAX_VALUE : next.dueNanos - now;
+        }
+
+        void sendDueAnswers(long now) throws IOException {
+            PendingAnswer answer;
+            while ((answer = answers.peek()) != null && answer.dueNanos <= now) {
+                answers.poll();
+                if (answer.player.channel.isOpen()) {
+                    out.clear();
+                    FrameViews.AnswerView.encode(out, answer.questionNumber, answer.answerIndex, 0);
+                    out.flip();
+                    writeFully(answer.player.channel, out);
+                }
+            }
+        }
+
+        void read(SelectionKey key) throws IOException {
+            Player player = (Player) key.attachment();
+            int read;
+            try {
+                read = player.channel.read(player.in);
+            } catch (IOException e) {
+                read = -1;
+            }
+            long now = System.nanoTime();
+            if (read < 0) {
+                key.cancel();
+                player.channel.close();
+                return;
+            }
+            ByteBuffer in = player.in;
+            while (true) {
+                if (player.skip > 0) {
+                    int skipped = Math.min(player.skip, in.position());
+                    in.flip().position(skipped);
+                    in.compact();
+                    player.skip -= skipped;
+                    if (player.skip > 0) {
+                        return;
+                    }
+                }
+                if (in.position() <= MessageCodec.HEADER_SIZE) {
+                    return;
+                }
+                int frameSize = MessageCodec.HEADER_SIZE + in.getInt(0);
+                if (frameSize > in.capacity()) {
+                    // Player lists and the final results; only the fact
+                    // that the results arrived matters here
+                    if (in.get(MessageCodec.HEADER_SIZE) == MessageType.RESULTS.ordinal()) {
+                        finished++;
+                    }
+                    player.skip = frameSize;
+                    continue;
+                }
+                if (in.position() < frameSize) {
+                    return;
+                }
+                ByteBuffer frame = in.duplicate();
+                frame.limit(frameSize).position(MessageCodec.HEADER_SIZE);
+                handle(player, frame, now);
+                in.flip().position(frameSize);
+                in.compact();
+            }
+        }
+
+        private void handle(Player player, ByteBuffer frame, long receivedNanos) throws IOException {
+            MessageType type = FrameViews.typeOf(frame);
+            out.clear();
+            if (type == MessageType.QUESTION) {
+                Message question = MessageCodec.decode(frame);
+                int index = question.getQuestionNumber() - 1;
+                offsets[index][counts[index]++] = receivedNanos - question.getTraceId();
+                answers.add(new PendingAnswer(player, question.getQuestionNumber(),
+                        question.getQuestion().getCorrectAnswerIndex(), receivedNanos + answerDelayNanos));
+            } else if (type == MessageType.KEEP_ALIVE) {
+                long echo = keepAlive.wrap(frame).getEchoTimestamp();
+                if (echo != 0) {
+                    FrameViews.KeepAliveView.encode(out, echo);
+                }
+            } else if (type == MessageType.RESULTS) {
+                finished++;
+            }
+            if (out.position() > 0) {
+                out.flip();
+                writeFully(player.channel, out);
+            }
+        }
+
+        void print() {
+            System.out.println("question  players  first_ms  p50_ms  p99_ms  last_ms  skew_ms");
+            for (int q = 0; q < offsets.length; q++) {
+                long[] times = Arrays.copyOf(offsets[q], counts[q]);
+                Arrays.sort(times);
+                if (times.length == 0) {
+                    System.out.printf("%8d  %7d%n", q + 1, 0);
+                    continue;
+                }
+                long first = times[0];
+                long last = times[times.length - 1];
+                System.out.printf("%8d  %7d  %8.1f  %6.1f  %6.1f  %7.1f  %7.1f%n", q + 1, times.length,
+                        first / 1e6, times[times.length / 2] / 1e6, times[(int) (times.length * 0.99)] / 1e6,
+                        last / 1e6, (last - first) / 1e6);
+            }
+        }
+    }
+
+    /**
+     * Writes a small frame; the socket buffer always has room for one, so
+     * this only loops in theory.
+     */
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
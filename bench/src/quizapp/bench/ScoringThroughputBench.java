@@ -0,0 +1,155 @@
+package quizapp.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.network.RoomStateStore;
+import quizapp.network.ScoringShards;
+import quizapp.util.Log;
+import quizapp.util.Logger;
+
+/**
+ * Measures answer ingestion: how many answers per second the scoring shards
+ * take in and score when a whole room answers at once.
+ *
+ * Builds a room of the given size, partitioned over the given number of
+ * shards the way GameServer partitions players by slot. For each question,
+ * producer threads, standing in for the clients' reader threads, submit one
+ * answer per player as fast as they can. The scorer does what the server's
+ * does: a CSV log line for every answer, and a score change plus a recovery
+ * log record for every correct one. Both logs are flushed every 200 ms
+ * from another thread, as on the server. Closing the question waits for
+ * the shards to catch up and merges the ranking.
+ *
+ * Per question it prints the ingestion rate the shards report (first
+ * answer submitted to last answer scored), the time from the first answer
+ * until the merged ranking was ready, and the answers per second that time
+ * works out to, which also counts the sort and merge. The answer log and
+ * recovery files are removed at the end.
+ *
+ * Usage: ScoringThroughputBench [players] [questions] [shards] [producers]
+ */
+public final class ScoringThroughputBench {
+
+    private static final int MAX_POINTS = 100;
+    private static final int TIME_LIMIT_SECONDS = 20;
+    private static final long FLUSH_INTERVAL_MILLIS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 30_000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int shardCount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int producers = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        Log.setLevel(Log.Level.WARN);
+
+        Quiz quiz = new Quiz();
+        List<Question> list = new ArrayList<>();
+        for (int i = 0; i < questions; i++) {
+            list.add(new Question("Question " + (i + 1), new String[]{"a", "b", "c", "d"}, i % 4,
+                    TIME_LIMIT_SECONDS));
+        }
+        quiz.setQuestions(list);
+        Logger logger = new Logger(quiz.roomCode);
+        RoomStateStore store = new RoomStateStore(quiz.roomCode);
+
+        List<Player> roster = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            Player player = new Player("player-" + i);
+            player.setSlot(i);
+            roster.add(player);
+        }
+        store.writeSnapshot(quiz, () -> roster);
+
+        ScoringShards shards = new ScoringShards(shardCount, (player, questionIndex, answerIndex, responseMillis) -> {
+            Question question = quiz.getQuestionAt(questionIndex);
+            player.setAnsweredTime(responseMillis);
+            logger.logAnswer(player.getName(), questionIndex, String.valueOf(answerIndex),
+                    String.valueOf(question.getCorrectAnswerIndex()), responseMillis);
+            if (question.isCorrectAnswer(answerIndex)) {
+                player.incrementCorrectAnswers();
+                double fraction = Math.min(1.0, responseMillis / (TIME_LIMIT_SECONDS * 1000.0));
+                player.addScore((int) Math.round(MAX_POINTS * (1.0 - fraction / 2)));
+                store.logScore(player.getName(), player.getCorrectAnswers(), player.getScore());
+            }
+        });
+        for (Player player : roster) {
+            shards.addPlayer(player);
+        }
+
+        Thread flusher = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(FLUSH_INTERVAL_MILLIS);
+                    store.flush();
+                    logger.flush();
+                }
+            } catch (InterruptedException e) {
+                // done
+            }
+        }, "log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        System.out.printf("players=%d questions=%d shards=%d producers=%d cpus=%d%n", players, questions,
+                shardCount, producers, Runtime.getRuntime().availableProcessors());
+        System.out.println("question  answers  ingest_per_s  ranked_ms  end_to_end_per_s");
+        double[] rates = new double[questions];
+        for (int q = 0; q < questions; q++) {
+            final int questionIndex = q;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>(producers);
+            for (int p = 0; p < producers; p++) {
+                final int first = p;
+                Thread producer = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = first; i < players; i += producers) {
+                        // Most answer correctly, spread over the time limit
+                        int answer = i % 5 == 0 ? (questionIndex + 1) % 4 : questionIndex % 4;
+                        shards.submit(roster.get(i), questionIndex, answer, i % (TIME_LIMIT_SECONDS * 1000));
+                    }
+                }, "producer-" + p);
+                producer.start();
+                threads.add(producer);
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread producer : threads) {
+                producer.join();
+            }
+            List<Player> ranking = shards.closeQuestion().join();
+            long rankedNanos = System.nanoTime() - begin;
+            if (ranking.size() != players) {
+                throw new IllegalStateException("Ranking has " + ranking.size() + " players");
+            }
+            rates[q] = shards.getLastIngestionRate();
+            System.out.printf("%8d  %7d  %12.0f  %9.1f  %16.0f%n", q + 1, players, rates[q], rankedNanos / 1e6,
+                    players * 1e9 / rankedNanos);
+        }
+
+        // The first question runs cold, before the JIT has caught up
+        double[] warm = Arrays.copyOfRange(rates, Math.min(1, questions - 1), questions);
+        Arrays.sort(warm);
+        System.out.printf("warm median %.0f answers/s%n", warm[warm.length / 2]);
+
+        flusher.interrupt();
+        shards.shutdown().join();
+        logger.close();
+        store.discard();
+        File[] logs = new File("logs").listFiles((dir, name) -> name.startsWith("quiz_" + quiz.roomCode + "_"));
+        if (logs != null) {
+            for (File log : logs) {
+                log.delete();
+            }
+        }
+        Log.flush(500);
+    }
+}
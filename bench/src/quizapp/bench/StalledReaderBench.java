@@ -0,0 +1,154 @@
+package quizapp.bench;
+
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.network.BufferPool;
+import quizapp.network.FrameChannel;
+import quizapp.network.GameClient;
+import quizapp.network.GameServer;
+import quizapp.network.Message;
+import quizapp.network.MessageType;
+import quizapp.util.LatencySketch;
+import quizapp.util.Log;
+
+/**
+ * Measures how clients that stop reading affect everyone else in the room.
+ *
+ * Runs a room with normal clients plus a few that join, keep sending
+ * keep-alives so they never time out, but never read. Questions carry a
+ * large text so the stalled clients' socket buffers fill within a couple
+ * of reveals. For each question it prints how long after the reveal the
+ * normal clients got the QUESTION frame, and how many got it at all before
+ * the next one.
+ *
+ * Usage: StalledReaderBench [normal] [stalled] [questions] [textKiB]
+ */
+public final class StalledReaderBench {
+
+    private static final int QUESTION_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int normal = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int stalled = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int questions = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int textKiB = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        Log.setLevel(Log.Level.ERROR);
+
+        Quiz quiz = new Quiz();
+        List<Question> list = new ArrayList<>();
+        String text = "x".repeat(textKiB * 1024);
+        for (int i = 0; i < questions; i++) {
+            list.add(new Question(i + ": " + text, new String[]{"a", "b", "c", "d"}, 0, QUESTION_SECONDS));
+        }
+        quiz.setQuestions(list);
+        GameServer server = new GameServer(quiz, quiz.roomCode, 0);
+        long[] revealNanos = new long[questions];
+        AtomicInteger revealed = new AtomicInteger();
+        LatencySketch[] current = new LatencySketch[1];
+        // Each reveal hands out a fresh sketch just before the frame is
+        // queued; later calls for the same question pass the same sketch
+        server.setResponseTimeCallback(sketch -> {
+            if (sketch != current[0]) {
+                current[0] = sketch;
+                revealNanos[revealed.getAndIncrement()] = System.nanoTime();
+            }
+        });
+        server.start();
+
+        LatencySketch[] received = new LatencySketch[questions];
+        for (int i = 0; i < questions; i++) {
+            received[i] = new LatencySketch();
+        }
+        List<GameClient> clients = new ArrayList<>();
+        for (int i = 0; i < normal; i++) {
+            GameClient client = new GameClient("n" + i, quiz.roomCode, "localhost");
+            client.setQuestionCallback((question, number, total) -> {
+                long micros = (System.nanoTime() - revealNanos[number - 1]) / 1000;
+                synchronized (received[number - 1]) {
+                    received[number - 1].record(micros);
+                }
+                client.sendAnswer(0);
+            });
+            if (!client.connect("localhost:" + server.getPort())) {
+                throw new IllegalStateException("Client n" + i + " could not join");
+            }
+            clients.add(client);
+        }
+        List<FrameChannel> stalledChannels = new ArrayList<>();
+        for (int i = 0; i < stalled; i++) {
+            stalledChannels.add(joinWithoutReading("s" + i, quiz.roomCode, server.getPort()));
+        }
+        Thread keepAlives = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(1000);
+                    for (FrameChannel channel : stalledChannels) {
+                        if (channel.isOpen()) {
+                            channel.writeKeepAlive(0);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // Server closed the connection; the run reports it
+            }
+        }, "stalled-keep-alives");
+        keepAlives.setDaemon(true);
+        keepAlives.start();
+
+        Thread.sleep(1000);
+        server.startGame();
+        // Reveal, the question time, the results pause, and some slack
+        Thread.sleep(questions * (QUESTION_SECONDS + 4) * 1000L + 3000);
+
+        System.out.printf("normal=%d stalled=%d questions=%d text=%dKiB%n", normal, stalled, questions, textKiB);
+        System.out.println("question  received  p50_ms  p99_ms  max_ms");
+        for (int i = 0; i < questions; i++) {
+            LatencySketch sketch = received[i];
+            synchronized (sketch) {
+                System.out.printf("%8d  %8d  %6.1f  %6.1f  %6.1f%n", i + 1, sketch.getCount(),
+                        sketch.quantile(0.5) / 1000.0, sketch.quantile(0.99) / 1000.0, sketch.getMax() / 1000.0);
+            }
+        }
+        int connected = 0;
+        for (Player player : server.getConnectedPlayers()) {
+            if (player.getName().startsWith("s")) {
+                connected++;
+            }
+        }
+        System.out.println("stalled clients still connected: " + connected);
+
+        server.stop();
+        for (GameClient client : clients) {
+            client.disconnect();
+        }
+        Log.flush(500);
+        System.exit(0);
+    }
+
+    /**
+     * Joins with a small receive buffer and never reads after the join
+     * reply, so the server's writes to it back up quickly.
+     */
+    private static FrameChannel joinWithoutReading(String name, String roomCode, int port) throws Exception {
+        SocketChannel channel = SocketChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+        channel.connect(new InetSocketAddress("localhost", port));
+        FrameChannel connection = new FrameChannel(channel, BufferPool.SHARED);
+        Message join = new Message(MessageType.JOIN);
+        join.setPlayerName(name);
+        join.setRoomCode(roomCode);
+        connection.write(join);
+        Message reply = connection.read();
+        if (reply.getType() != MessageType.JOIN_SUCCESS) {
+            throw new IllegalStateException("Stalled client " + name + " could not join");
+        }
+        return connection;
+    }
+}
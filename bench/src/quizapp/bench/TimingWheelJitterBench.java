@@ -0,0 +1,153 @@
+package quizapp.bench;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import quizapp.util.LatencySketch;
+import quizapp.util.TimingWheel;
+
+/**
+ * Measures how late timing wheel tasks fire when many rooms share one
+ * wheel, and what scheduling and cancelling a timeout costs.
+ *
+ * Uses TimingWheel.SHARED, as the server does, and gives every room the
+ * timers a hosted room runs: a question loop of 1 s timer ticks, a
+ * deadline of 5 to 15 s and a 3 s transition to the next question, a 3 s
+ * keep-alive sweep and a 250 ms tally task. Rooms start staggered over the
+ * first second, as they would be created. The tasks themselves do no work.
+ *
+ * Each task records how long after its deadline it started. Nothing is
+ * recorded during the warm-up, so the JIT's first compilations do not end
+ * up in the maximum. It prints fires per second, the p50, p99 and maximum
+ * lateness in microseconds, how many tasks fired before their deadline,
+ * and the wheel's thread count.
+ *
+ * It then schedules a number of 10 s handshake deadlines from one thread
+ * and cancels them all, and prints the cost of each call.
+ *
+ * Usage: TimingWheelJitterBench [rooms] [seconds] [warmUpSeconds] [deadlines]
+ */
+public final class TimingWheelJitterBench {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final long TRANSITION_MILLIS = 3000;
+    private static final long KEEP_ALIVE_MILLIS = 3000;
+    private static final long TALLY_MILLIS = 250;
+    private static final long HANDSHAKE_MILLIS = 10_000;
+
+    private static final LatencySketch jitter = new LatencySketch();
+    private static final AtomicLong fired = new AtomicLong();
+    private static final AtomicLong early = new AtomicLong();
+    private static volatile boolean recording;
+
+    /**
+     * Records how late it started against the deadline of its timeout.
+     */
+    private abstract static class TimedTask implements Runnable {
+        volatile TimingWheel.Timeout timeout;
+
+        @Override
+        public final void run() {
+            TimingWheel.Timeout current = timeout;
+            if (current != null && recording) {
+                long lateNanos = System.nanoTime() - current.getDeadlineNanos();
+                if (lateNanos < 0) {
+                    early.incrementAndGet();
+                }
+                jitter.record(lateNanos / 1000);
+                fired.incrementAndGet();
+            }
+            fire();
+        }
+
+        abstract void fire();
+    }
+
+    /**
+     * One room's question loop: ticks every second until the deadline, then
+     * a transition, then the next question.
+     */
+    private static final class Room {
+        private final TimingWheel wheel;
+        private final long questionMillis;
+
+        Room(TimingWheel wheel, int index) {
+            this.wheel = wheel;
+            this.questionMillis = 5000 + (index % 11) * 1000L;
+        }
+
+        void startQuestion() {
+            TimedTask tick = task(() -> { });
+            tick.timeout = wheel.scheduleAtFixedRate(tick, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            TimedTask deadline = task(() -> {
+                tick.timeout.cancel();
+                TimedTask transition = task(this::startQuestion);
+                transition.timeout = wheel.schedule(transition, TRANSITION_MILLIS, TimeUnit.MILLISECONDS);
+            });
+            deadline.timeout = wheel.schedule(deadline, questionMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void start() {
+            startQuestion();
+            TimedTask keepAlive = task(() -> { });
+            keepAlive.timeout = wheel.scheduleAtFixedRate(keepAlive, KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+            TimedTask tally = task(() -> { });
+            tally.timeout = wheel.scheduleAtFixedRate(tally, TALLY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static TimedTask task(Runnable body) {
+        return new TimedTask() {
+            @Override
+            void fire() {
+                body.run();
+            }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        int warmUpSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int deadlines = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        TimingWheel wheel = TimingWheel.SHARED;
+        for (int i = 0; i < rooms; i++) {
+            Room room = new Room(wheel, i);
+            wheel.schedule(room::start, i % 1000, TimeUnit.MILLISECONDS);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmUpSeconds));
+        recording = true;
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        recording = false;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Set<Thread> threads = Thread.getAllStackTraces().keySet();
+        long wheelThreads = threads.stream().filter(t -> t.getName().startsWith("timing-wheel")).count();
+        System.out.printf("rooms=%d seconds=%d warmUp=%d cpus=%d wheelThreads=%d%n", rooms, seconds, warmUpSeconds,
+                Runtime.getRuntime().availableProcessors(), wheelThreads);
+        System.out.printf("fired %d (%.0f/s), late us: p50 %d  p99 %d  max %d, early %d%n", fired.get(),
+                fired.get() / elapsedSeconds, jitter.quantile(0.50), jitter.quantile(0.99), jitter.getMax(),
+                early.get());
+
+        // Deadlines far enough out that none fires while being cancelled
+        TimingWheel.Timeout[] handshakes = new TimingWheel.Timeout[deadlines];
+        Runnable noop = () -> { };
+        long scheduleStart = System.nanoTime();
+        for (int i = 0; i < deadlines; i++) {
+            handshakes[i] = wheel.schedule(noop, HANDSHAKE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        long scheduleNanos = System.nanoTime() - scheduleStart;
+        long cancelStart = System.nanoTime();
+        for (TimingWheel.Timeout handshake : handshakes) {
+            handshake.cancel();
+        }
+        long cancelNanos = System.nanoTime() - cancelStart;
+        System.out.printf("%d deadlines: schedule %.0f ns each, cancel %.0f ns each%n", deadlines,
+                (double) scheduleNanos / deadlines, (double) cancelNanos / deadlines);
+
+        wheel.shutdown();
+    }
+}
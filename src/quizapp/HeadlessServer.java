@@ -0,0 +1,324 @@
+package quizapp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import quizapp.admin.AdminServer;
+import quizapp.admin.RoomManager;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.model.QuizFile;
+import quizapp.network.FrameCapture;
+import quizapp.network.GameListener;
+import quizapp.network.GameServer;
+import quizapp.network.RoomStateStore;
+import quizapp.util.TimingWheel;
+
+/**
+ * Entry point for hosting a quiz without a display. Loads the quiz from a
+ * {@link QuizFile} and runs the game on the server's own loop, so no AWT or
+ * Swing class is ever loaded.
+ *
+ * The quiz starts after a delay, once enough players have joined, or when
+ * "start" is typed on standard input, whichever comes first. The process
+ * exits once the results have been sent, unless it also serves the
+ * {@link AdminServer}, in which case more rooms can be created over HTTP
+ * and it runs until "quit".
+ */
+public class HeadlessServer {
+
+    private static final long RESULTS_GRACE_MILLIS = 2000; // lets RESULTS reach slow clients before closing
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java quizapp.HeadlessServer [quiz-file] [options]",
+            "  --room CODE          room code to use; resumes the room if it was interrupted",
+            "  --port N             game port for the room (default " + GameServer.DEFAULT_PORT + ")",
+            "  --start-after SECS   start the quiz this many seconds after startup",
+            "  --min-players N      start the quiz once N players have joined",
+            "  --admin-port N       serve the admin API on port N; the quiz file is then optional",
+            "  --admin-bind ADDR    address for the admin API (default loopback only); needs --admin-token",
+            "  --admin-token TOKEN  require \"Authorization: Bearer TOKEN\" on admin API requests",
+            "  --capture FILE       record the room's traffic into FILE for quizapp.network.CaptureAnalyzer",
+            "Commands on standard input: start, end, players, quit");
+
+    private final GameServer server;
+    private final int minPlayers;
+    private final int adminPort;
+    private final InetAddress adminAddress;
+    private final String adminToken;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private HeadlessServer(GameServer server, int minPlayers, int adminPort, InetAddress adminAddress,
+            String adminToken) {
+        this.server = server;
+        this.minPlayers = minPlayers;
+        this.adminPort = adminPort;
+        this.adminAddress = adminAddress;
+        this.adminToken = adminToken;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        // The admin API's small request/response pairs otherwise wait out a
+        // delayed ACK (about 40ms) on every call. Read once, when the HTTP
+        // server classes load.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        Path quizPath = null;
+        String roomCode = null;
+        int port = GameServer.DEFAULT_PORT;
+        long startAfterSeconds = -1;
+        int minPlayers = 0;
+        int adminPort = -1;
+        InetAddress adminAddress = InetAddress.getLoopbackAddress();
+        String adminToken = null;
+        Path capturePath = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--room":
+                        roomCode = args[++i].toUpperCase();
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--start-after":
+                        startAfterSeconds = Long.parseLong(args[++i]);
+                        break;
+                    case "--min-players":
+                        minPlayers = Integer.parseInt(args[++i]);
+                        break;
+                    case "--admin-port":
+                        adminPort = Integer.parseInt(args[++i]);
+                        break;
+                    case "--admin-bind":
+                        adminAddress = parseAddress(args[++i]);
+                        break;
+                    case "--admin-token":
+                        adminToken = args[++i];
+                        break;
+                    case "--capture":
+                        capturePath = Paths.get(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || quizPath != null) {
+                            throw new IllegalArgumentException("Unknown argument " + args[i]);
+                        }
+                        quizPath = Paths.get(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            System.err.println("Missing value for " + args[args.length - 1]);
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (!adminAddress.isLoopbackAddress() && adminToken == null) {
+            System.err.println("--admin-bind to a non-loopback address needs --admin-token");
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        GameServer server = roomCode != null && RoomStateStore.findRecoverableRooms().contains(roomCode)
+                ? GameServer.recover(roomCode, port) : null;
+        if (server == null && quizPath == null && adminPort < 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (server == null && quizPath != null) {
+            try {
+                Quiz quiz = QuizFile.load(quizPath);
+                if (roomCode != null) {
+                    quiz.roomCode = roomCode;
+                }
+                server = new GameServer(quiz, quiz.roomCode, port);
+                System.out.println("Loaded " + quiz.getName() + " with " + quiz.getQuestionCount() + " questions");
+            } catch (IOException e) {
+                System.err.println("Error loading quiz " + quizPath + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        FrameCapture capture = null;
+        if (server != null && capturePath != null) {
+            try {
+                capture = FrameCapture.open(capturePath, FrameCapture.DEFAULT_CAPACITY);
+                server.setCapture(capture);
+            } catch (IOException e) {
+                System.err.println("Error opening capture " + capturePath + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        HeadlessServer host = new HeadlessServer(server, minPlayers, adminPort, adminAddress, adminToken);
+        int status = 0;
+        try {
+            host.run(startAfterSeconds);
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            status = 1;
+        }
+        if (capture != null) {
+            try {
+                capture.close();
+            } catch (IOException e) {
+                System.err.println("Error closing capture " + capturePath + ": " + e.getMessage());
+            }
+        }
+        System.exit(status);
+    }
+
+    private void run(long startAfterSeconds) throws IOException {
+        RoomManager rooms = null;
+        AdminServer admin = null;
+        if (adminPort >= 0) {
+            rooms = new RoomManager();
+            admin = new AdminServer(rooms, new InetSocketAddress(adminAddress, adminPort), adminToken);
+        }
+
+        if (server != null) {
+            server.addGameListener(new GameListener() {
+                @Override
+                public void questionStarted(Question question, int questionIndex, int questionCount) {
+                    System.out.println("Question " + (questionIndex + 1) + "/" + questionCount + ": " + question.getText());
+                }
+
+                @Override
+                public void questionClosed(Question question, int questionIndex) {
+                    System.out.println("Time up for question " + (questionIndex + 1));
+                }
+
+                @Override
+                public void quizFinished(List<Player> results) {
+                    printPlayers("Results", results);
+                    System.out.print("Latency by hop:\n" + server.getHopLatencies().summary());
+                    if (adminPort < 0) {
+                        TimingWheel.SHARED.schedule(stopped::countDown, RESULTS_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                }
+
+                @Override
+                public void playersChanged(List<Player> players) {
+                    if (minPlayers > 0 && players.size() >= minPlayers && !started.get()) {
+                        System.out.println(players.size() + " players joined");
+                        start();
+                    }
+                }
+            });
+            server.start();
+            if (rooms != null) {
+                rooms.register(server);
+            }
+        }
+        if (admin != null) {
+            admin.start();
+        }
+        reportStartup();
+
+        if (server != null && startAfterSeconds >= 0) {
+            System.out.println("Quiz starts in " + startAfterSeconds + "s");
+            TimingWheel.SHARED.schedule(this::start, startAfterSeconds, TimeUnit.SECONDS);
+        }
+        Thread console = new Thread(this::readCommands, "console");
+        console.setDaemon(true);
+        console.start();
+
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (admin != null) {
+            admin.stop();
+            rooms.closeAll();
+        } else {
+            server.stop();
+        }
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            server.startGame();
+        }
+    }
+
+    private void readCommands() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.trim().toLowerCase();
+                if (server == null && !command.equals("quit") && !command.isEmpty()) {
+                    System.out.println("No room was started from the command line; use the admin API or quit");
+                    continue;
+                }
+                switch (command) {
+                    case "start":
+                        start();
+                        break;
+                    case "end":
+                        started.set(true);
+                        server.endGame();
+                        break;
+                    case "players":
+                        printPlayers("Players", server.getConnectedPlayers());
+                        break;
+                    case "quit":
+                        stopped.countDown();
+                        return;
+                    case "":
+                        break;
+                    default:
+                        System.out.println("Commands: start, end, players, quit");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading commands: " + e.getMessage());
+        }
+    }
+
+    private static InetAddress parseAddress(String value) {
+        try {
+            return InetAddress.getByName(value);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Unknown address " + value);
+        }
+    }
+
+    private static void printPlayers(String heading, List<Player> players) {
+        System.out.println(heading + " (" + players.size() + "):");
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            System.out.println(String.format("%3d. %s - %d points (%d correct)",
+                    i + 1, player.getName(), player.getScore(), player.getCorrectAnswers()));
+        }
+    }
+
+    /**
+     * Prints how long the JVM took to get the server listening and what it
+     * holds at that point, for comparison with the GUI host.
+     */
+    private static void reportStartup() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        int classes = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+        System.out.println(String.format("Ready in %dms: %.1f MB heap used, %d classes loaded, %d threads",
+                uptime, heapUsed / (1024.0 * 1024.0), classes, Thread.activeCount()));
+    }
+}
@@ -0,0 +1,285 @@
+package quizapp.admin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import quizapp.model.Quiz;
+import quizapp.model.QuizFile;
+import quizapp.network.GameServer;
+import quizapp.util.Log;
+import quizapp.util.MetricsRegistry;
+
+/**
+ * HTTP control surface for the rooms in a {@link RoomManager}, so rooms can
+ * be scripted and monitored instead of driven from the host window:
+ *
+ * <pre>
+ * GET    /rooms                       all rooms
+ * POST   /rooms?port=N&amp;room=CODE       create a room; the body is a quiz file
+ * GET    /rooms/CODE                  one room
+ * DELETE /rooms/CODE                  stop a room
+ * GET    /rooms/CODE/players          players and scores
+ * POST   /rooms/CODE/start            start the quiz
+ * POST   /rooms/CODE/next             close the question, or reveal the next
+ * POST   /rooms/CODE/end              end the quiz and send the results
+ * GET    /rooms/CODE/events           server-sent event stream
+ * GET    /metrics                     counters and histograms, Prometheus text format
+ * </pre>
+ *
+ * Every request runs on its own virtual thread, so a held-open event stream
+ * costs no platform thread. Room summaries only read counters the game
+ * already keeps, without taking any lock the game uses, so polling every
+ * room each second does not slow the game down.
+ *
+ * The API can create and stop rooms, so it only listens on the loopback
+ * interface unless given another address. With a token set, every request
+ * must carry it as {@code Authorization: Bearer <token>}.
+ */
+public class AdminServer {
+
+    private static final long STREAM_KEEP_ALIVE_SECONDS = 15;
+    private static final Log LOG = Log.get(AdminServer.class);
+
+    private final RoomManager rooms;
+    private final HttpServer http;
+    private final byte[] expectedAuthorization;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Serves the API on the loopback interface only, without a token.
+     */
+    public AdminServer(RoomManager rooms, int port) throws IOException {
+        this(rooms, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), null);
+    }
+
+    /**
+     * Serves the API on the given address, requiring the token on every
+     * request unless it is null.
+     */
+    public AdminServer(RoomManager rooms, InetSocketAddress address, String token) throws IOException {
+        this.rooms = rooms;
+        this.expectedAuthorization = token == null ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        this.http = HttpServer.create(address, 0);
+        this.http.setExecutor(executor);
+        this.http.createContext("/rooms", this::handle);
+        this.http.createContext("/metrics", this::scrape);
+    }
+
+    public void start() {
+        http.start();
+        LOG.info("Admin API listening", "address", http.getAddress(), "token", expectedAuthorization != null);
+    }
+
+    public void stop() {
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!authorized(exchange)) {
+                send(exchange, 401, Json.error("Missing or wrong token"));
+                return;
+            }
+            route(exchange);
+        } catch (RuntimeException e) {
+            send(exchange, 500, Json.error(String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!authorized(exchange)) {
+                send(exchange, 401, Json.error("Missing or wrong token"));
+                return;
+            }
+            byte[] body = MetricsRegistry.SHARED.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        if (expectedAuthorization == null) {
+            return true;
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        // Constant time, so the token cannot be guessed byte by byte
+        return header != null
+                && MessageDigest.isEqual(expectedAuthorization, header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+
+        if (!path[0].equals("rooms")) {
+            send(exchange, 404, Json.error("Unknown request " + method + " " + exchange.getRequestURI().getPath()));
+            return;
+        }
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                listRooms(exchange);
+            } else if (method.equals("POST")) {
+                createRoom(exchange);
+            } else {
+                send(exchange, 405, Json.error("Use GET or POST"));
+            }
+            return;
+        }
+
+        String roomCode = path[1].toUpperCase();
+        GameServer server = rooms.get(roomCode);
+        if (server == null || path.length > 3) {
+            send(exchange, 404, Json.error("No room " + roomCode));
+            return;
+        }
+
+        String action = path.length == 3 ? path[2] : "";
+        switch (method + " " + action) {
+            case "GET ":
+                send(exchange, 200, Json.room(server));
+                break;
+            case "DELETE ":
+                rooms.close(roomCode);
+                send(exchange, 200, Json.room(server));
+                break;
+            case "GET players":
+                send(exchange, 200, Json.players(server.getConnectedPlayers()));
+                break;
+            case "POST start":
+                server.startGame();
+                send(exchange, 202, Json.room(server));
+                break;
+            case "POST next":
+                server.nextQuestion();
+                send(exchange, 202, Json.room(server));
+                break;
+            case "POST end":
+                server.endGame();
+                send(exchange, 202, Json.room(server));
+                break;
+            case "GET events":
+                streamEvents(exchange, roomCode);
+                break;
+            default:
+                send(exchange, 404, Json.error("Unknown request " + method + " " + exchange.getRequestURI().getPath()));
+        }
+    }
+
+    private void listRooms(HttpExchange exchange) throws IOException {
+        List<GameServer> servers = rooms.getRooms();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < servers.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(Json.room(servers.get(i)));
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    private void createRoom(HttpExchange exchange) throws IOException {
+        String roomCode = queryParameter(exchange.getRequestURI(), "room");
+        String portValue = queryParameter(exchange.getRequestURI(), "port");
+        Quiz quiz;
+        int port;
+        try (InputStreamReader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            port = portValue == null ? 0 : Integer.parseInt(portValue);
+            quiz = QuizFile.parse(body, "Quiz");
+        } catch (NumberFormatException e) {
+            send(exchange, 400, Json.error("Invalid port " + portValue));
+            return;
+        } catch (IOException e) {
+            send(exchange, 400, Json.error("Invalid quiz: " + e.getMessage()));
+            return;
+        }
+
+        try {
+            GameServer server = rooms.create(quiz, roomCode == null ? null : roomCode.toUpperCase(), port);
+            send(exchange, 201, Json.room(server));
+        } catch (IllegalStateException | IOException e) {
+            send(exchange, 409, Json.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Streams the room's events until the client goes away or the room is
+     * closed, with a comment line now and then to keep idle proxies from
+     * dropping the connection.
+     */
+    private void streamEvents(HttpExchange exchange, String roomCode) throws IOException {
+        RoomEvents events = rooms.getEvents(roomCode);
+        if (events == null) {
+            send(exchange, 404, Json.error("No room " + roomCode));
+            return;
+        }
+        BlockingQueue<String> queue = events.subscribe();
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            while (true) {
+                String event = queue.poll(STREAM_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                out.write((event == null ? ": keep-alive\n\n" : event).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (event == RoomEvents.CLOSED) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            events.unsubscribe(queue);
+        }
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package quizapp.admin;
+
+import java.util.List;
+import quizapp.model.Player;
+import quizapp.network.GameServer;
+
+/**
+ * The few JSON shapes the admin API returns, written by hand so the API
+ * needs nothing beyond the JDK.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static String room(GameServer server) {
+        return "{\"room\":" + quote(server.getRoomCode()) +
+                ",\"port\":" + server.getPort() +
+                ",\"phase\":" + quote(server.getGamePhase().name()) +
+                ",\"question\":" + (server.getQuiz().currentQuestionIndex + 1) +
+                ",\"questions\":" + server.getQuiz().getQuestionCount() +
+                ",\"players\":" + server.getPlayerCount() + "}";
+    }
+
+    static String players(List<Player> players) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":").append(quote(player.getName()))
+                    .append(",\"score\":").append(player.getScore())
+                    .append(",\"correct\":").append(player.getCorrectAnswers())
+                    .append(",\"rejected\":").append(player.getRejectedAnswers())
+                    .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
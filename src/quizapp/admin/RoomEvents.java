@@ -0,0 +1,80 @@
+package quizapp.admin;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.network.GameListener;
+
+/**
+ * Turns one room's game events into server-sent events for the admin
+ * stream. Each event is formatted once and offered to every subscriber's
+ * bounded queue without blocking: a stalled admin client loses its oldest
+ * events instead of holding up the game loop that raised them.
+ */
+class RoomEvents implements GameListener {
+
+    static final String CLOSED = "event: closed\ndata: {}\n\n";
+    private static final int SUBSCRIBER_CAPACITY = 256;
+
+    private final List<BlockingQueue<String>> subscribers = new CopyOnWriteArrayList<>();
+
+    BlockingQueue<String> subscribe() {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(SUBSCRIBER_CAPACITY);
+        subscribers.add(queue);
+        return queue;
+    }
+
+    void unsubscribe(BlockingQueue<String> queue) {
+        subscribers.remove(queue);
+    }
+
+    /**
+     * Tells every subscriber the room is gone, so their streams end.
+     */
+    void close() {
+        publish(CLOSED);
+    }
+
+    @Override
+    public void questionStarted(Question question, int questionIndex, int questionCount) {
+        publish("question", "{\"question\":" + (questionIndex + 1) + ",\"questions\":" + questionCount +
+                ",\"text\":" + Json.quote(question.getText()) + ",\"timeLimit\":" + question.getTimeLimit() + "}");
+    }
+
+    @Override
+    public void timerTick(int secondsRemaining) {
+        publish("timer", "{\"remaining\":" + secondsRemaining + "}");
+    }
+
+    @Override
+    public void questionClosed(Question question, int questionIndex) {
+        publish("time_up", "{\"question\":" + (questionIndex + 1) + "}");
+    }
+
+    @Override
+    public void quizFinished(List<Player> results) {
+        publish("finished", "{\"results\":" + Json.players(results) + "}");
+    }
+
+    @Override
+    public void playersChanged(List<Player> players) {
+        publish("players", "{\"players\":" + players.size() + "}");
+    }
+
+    private void publish(String event, String data) {
+        if (!subscribers.isEmpty()) {
+            publish("event: " + event + "\ndata: " + data + "\n\n");
+        }
+    }
+
+    private void publish(String line) {
+        for (BlockingQueue<String> queue : subscribers) {
+            while (!queue.offer(line)) {
+                queue.poll();
+            }
+        }
+    }
+}
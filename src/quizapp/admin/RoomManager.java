@@ -0,0 +1,104 @@
+package quizapp.admin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import quizapp.model.Quiz;
+import quizapp.network.GameServer;
+
+/**
+ * The rooms hosted by this process, keyed by room code. Each room is a
+ * {@link GameServer} on its own port, with its events published for the
+ * admin stream.
+ */
+public class RoomManager {
+
+    private static final class Room {
+        final GameServer server;
+        final RoomEvents events = new RoomEvents();
+
+        Room(GameServer server) {
+            this.server = server;
+            server.addGameListener(events);
+        }
+    }
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Creates and starts a room for the quiz. Port 0 picks a free port.
+     * Throws IllegalStateException if the room code is already in use.
+     */
+    public GameServer create(Quiz quiz, String roomCode, int port) throws IOException {
+        if (roomCode != null) {
+            quiz.roomCode = roomCode;
+        }
+        if (rooms.containsKey(quiz.roomCode)) {
+            throw new IllegalStateException("Room " + quiz.roomCode + " already exists");
+        }
+        Room room = new Room(new GameServer(quiz, quiz.roomCode, port));
+        if (rooms.putIfAbsent(quiz.roomCode, room) != null) {
+            room.server.stop();
+            throw new IllegalStateException("Room " + quiz.roomCode + " already exists");
+        }
+        try {
+            room.server.start();
+        } catch (IOException e) {
+            rooms.remove(quiz.roomCode, room);
+            room.server.stop();
+            throw e;
+        }
+        return room.server;
+    }
+
+    /**
+     * Adds a room that was started elsewhere, e.g. from the command line.
+     */
+    public void register(GameServer server) {
+        Room room = new Room(server);
+        if (rooms.putIfAbsent(server.getRoomCode(), room) != null) {
+            server.removeGameListener(room.events);
+            throw new IllegalStateException("Room " + server.getRoomCode() + " already exists");
+        }
+    }
+
+    public GameServer get(String roomCode) {
+        Room room = rooms.get(roomCode);
+        return room == null ? null : room.server;
+    }
+
+    public List<GameServer> getRooms() {
+        List<GameServer> servers = new ArrayList<>(rooms.size());
+        for (Room room : rooms.values()) {
+            servers.add(room.server);
+        }
+        return servers;
+    }
+
+    RoomEvents getEvents(String roomCode) {
+        Room room = rooms.get(roomCode);
+        return room == null ? null : room.events;
+    }
+
+    /**
+     * Stops a room and disconnects its players. Returns false if there is
+     * no such room.
+     */
+    public boolean close(String roomCode) {
+        Room room = rooms.remove(roomCode);
+        if (room == null) {
+            return false;
+        }
+        room.server.stop();
+        room.events.close();
+        return true;
+    }
+
+    public void closeAll() {
+        for (String roomCode : new ArrayList<>(rooms.keySet())) {
+            close(roomCode);
+        }
+    }
+}
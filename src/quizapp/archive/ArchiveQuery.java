@@ -0,0 +1,199 @@
+package quizapp.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Per-player accuracy across archived sessions.
+ *
+ * Files are scanned in parallel. The date range and player filters are
+ * checked against each file header first, so files that cannot match are
+ * skipped without inflating any column, and matching files only decode the
+ * columns the query needs.
+ *
+ * Usage: ArchiveQuery [--dir logs/] [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--player name]
+ */
+public class ArchiveQuery {
+
+    private final long fromTimestamp;
+    private final long toTimestamp;
+    private final String playerFilter;
+    private final AtomicInteger filesScanned = new AtomicInteger();
+    private final AtomicInteger filesSkipped = new AtomicInteger();
+
+    /**
+     * Answer totals for one player.
+     */
+    public static class PlayerAccuracy {
+        private long answers;
+        private long correct;
+
+        void add(PlayerAccuracy other) {
+            answers += other.answers;
+            correct += other.correct;
+        }
+
+        public long getAnswers() {
+            return answers;
+        }
+
+        public long getCorrect() {
+            return correct;
+        }
+
+        public double getAccuracy() {
+            return answers == 0 ? 0 : (double) correct / answers;
+        }
+    }
+
+    public ArchiveQuery(long fromTimestamp, long toTimestamp, String playerFilter) {
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        this.playerFilter = playerFilter;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String logDirectory = "logs/";
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        String player = null;
+
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for " + args[i]);
+                printUsage();
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--dir":
+                    logDirectory = args[i + 1];
+                    break;
+                case "--from":
+                    from = LocalDate.parse(args[i + 1]).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+                    break;
+                case "--to":
+                    to = LocalDate.parse(args[i + 1]).plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC) - 1;
+                    break;
+                case "--player":
+                    player = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+
+        File directory = new File(logDirectory);
+        LogCompactor.compactAll(directory, false);
+
+        long start = System.nanoTime();
+        ArchiveQuery query = new ArchiveQuery(from, to, player);
+        Map<String, PlayerAccuracy> results = query.run(LogCompactor.archiveDirectory(directory));
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%-24s %8s %8s %9s%n", "Player", "Answers", "Correct", "Accuracy");
+        for (Map.Entry<String, PlayerAccuracy> entry : results.entrySet()) {
+            PlayerAccuracy accuracy = entry.getValue();
+            System.out.printf("%-24s %8d %8d %8.1f%%%n", entry.getKey(),
+                    accuracy.getAnswers(), accuracy.getCorrect(), accuracy.getAccuracy() * 100);
+        }
+        System.out.println(query.filesScanned.get() + " files scanned, " + query.filesSkipped.get() +
+                " skipped from header statistics, " + elapsed + "ms");
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: ArchiveQuery [--dir logs/] [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--player name]");
+    }
+
+    public Map<String, PlayerAccuracy> run(Path archiveDirectory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(archiveDirectory)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(SessionArchive.EXTENSION)).forEach(files::add);
+        }
+
+        try {
+            return files.parallelStream()
+                    .map(this::scan)
+                    .reduce(new TreeMap<>(), ArchiveQuery::merge, ArchiveQuery::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Map<String, PlayerAccuracy> scan(Path file) {
+        try {
+            SessionArchive archive = SessionArchive.open(file);
+            int wantedPlayer = playerFilter != null ? archive.playerId(playerFilter) : -1;
+            if (!archive.overlaps(fromTimestamp, toTimestamp) || (playerFilter != null && wantedPlayer < 0)) {
+                filesSkipped.incrementAndGet();
+                return new HashMap<>();
+            }
+            filesScanned.incrementAndGet();
+
+            // The timestamp column is only needed if the file straddles the range
+            boolean checkTime = archive.getMinTimestamp() < fromTimestamp || archive.getMaxTimestamp() > toTimestamp;
+            int[] timestamps = checkTime ? archive.readColumn(SessionArchive.COLUMN_TIMESTAMP) : null;
+            int[] playerIds = archive.readColumn(SessionArchive.COLUMN_PLAYER);
+            int[] answers = archive.readColumn(SessionArchive.COLUMN_ANSWER);
+            int[] correctAnswers = archive.readColumn(SessionArchive.COLUMN_CORRECT_ANSWER);
+
+            PlayerAccuracy[] byPlayer = new PlayerAccuracy[archive.getPlayers().length];
+            long base = archive.getMinTimestamp();
+            for (int row = 0; row < archive.getRowCount(); row++) {
+                if (wantedPlayer >= 0 && playerIds[row] != wantedPlayer) {
+                    continue;
+                }
+                if (checkTime) {
+                    long timestamp = base + timestamps[row];
+                    if (timestamp < fromTimestamp || timestamp > toTimestamp) {
+                        continue;
+                    }
+                }
+                PlayerAccuracy accuracy = byPlayer[playerIds[row]];
+                if (accuracy == null) {
+                    accuracy = byPlayer[playerIds[row]] = new PlayerAccuracy();
+                }
+                accuracy.answers++;
+                if (answers[row] == correctAnswers[row]) {
+                    accuracy.correct++;
+                }
+            }
+
+            Map<String, PlayerAccuracy> result = new HashMap<>();
+            for (int id = 0; id < byPlayer.length; id++) {
+                if (byPlayer[id] != null) {
+                    result.put(archive.getPlayers()[id], byPlayer[id]);
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, PlayerAccuracy> merge(Map<String, PlayerAccuracy> a, Map<String, PlayerAccuracy> b) {
+        Map<String, PlayerAccuracy> merged = new TreeMap<>(a);
+        for (Map.Entry<String, PlayerAccuracy> entry : b.entrySet()) {
+            merged.merge(entry.getKey(), entry.getValue(), (x, y) -> {
+                PlayerAccuracy sum = new PlayerAccuracy();
+                sum.add(x);
+                sum.add(y);
+                return sum;
+            });
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,87 @@
+package quizapp.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Converts finished session logs in the logs directory into the columnar
+ * archive format.
+ *
+ * Usage: LogCompactor [logDirectory] [--delete]
+ */
+public class LogCompactor {
+
+    private static final String DEFAULT_LOG_DIRECTORY = "logs/";
+    private static final String ARCHIVE_DIRECTORY = "archive";
+    // A log still being written by a running game is left alone
+    private static final long MIN_IDLE_MILLIS = 60_000;
+
+    public static void main(String[] args) {
+        String logDirectory = DEFAULT_LOG_DIRECTORY;
+        boolean deleteCompacted = false;
+        for (String arg : args) {
+            if (arg.equals("--delete")) {
+                deleteCompacted = true;
+            } else {
+                logDirectory = arg;
+            }
+        }
+
+        long start = System.nanoTime();
+        int compacted = compactAll(new File(logDirectory), deleteCompacted);
+        System.out.println("Compacted " + compacted + " session logs in " +
+                (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+
+    /**
+     * Compacts every finished session log that has no archive yet, or that
+     * was written to after its archive was made, and returns the number of
+     * files converted.
+     */
+    public static int compactAll(File logDirectory, boolean deleteCompacted) {
+        File archiveDirectory = new File(logDirectory, ARCHIVE_DIRECTORY);
+        if (!archiveDirectory.exists()) {
+            archiveDirectory.mkdirs();
+        }
+
+        File[] logs = logDirectory.listFiles((dir, name) -> name.startsWith("quiz_") && name.endsWith(".csv"));
+        if (logs == null) {
+            return 0;
+        }
+
+        int compacted = 0;
+        long now = System.currentTimeMillis();
+        for (File log : logs) {
+            String baseName = log.getName().substring(0, log.getName().length() - ".csv".length());
+            File archive = new File(archiveDirectory, baseName + SessionArchive.EXTENSION);
+            long logModified = log.lastModified();
+            // A game left idle past MIN_IDLE_MILLIS may be archived and then
+            // resume writing; an archive older than its log is missing rows
+            if ((archive.exists() && archive.lastModified() >= logModified) || now - logModified < MIN_IDLE_MILLIS) {
+                continue;
+            }
+
+            try {
+                SessionArchive.compact(log.toPath(), archive.toPath(), roomCodeOf(baseName));
+                compacted++;
+                if (deleteCompacted) {
+                    log.delete();
+                }
+            } catch (IOException e) {
+                System.err.println("Error compacting " + log.getName() + ": " + e.getMessage());
+            }
+        }
+        return compacted;
+    }
+
+    public static Path archiveDirectory(File logDirectory) {
+        return new File(logDirectory, ARCHIVE_DIRECTORY).toPath();
+    }
+
+    // Log files are named quiz_<ROOM>_<yyyyMMdd>_<HHmmss>
+    private static String roomCodeOf(String baseName) {
+        String[] parts = baseName.split("_");
+        return parts.length >= 2 ? parts[1] : "";
+    }
+}
@@ -0,0 +1,373 @@
+package quizapp.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed columnar copy of one session log.
+ *
+ * The header holds the row count, min/max statistics for the timestamp and
+ * question columns, the player-name dictionary and the location of every
+ * column, so a query can decide from the header alone whether the file is
+ * relevant and then inflate only the columns it needs. Each column is a
+ * deflated run of zigzag varints; player names are stored as dictionary ids.
+ */
+public class SessionArchive {
+
+    public static final String EXTENSION = ".qcol";
+
+    public static final int COLUMN_TIMESTAMP = 0;
+    public static final int COLUMN_PLAYER = 1;
+    public static final int COLUMN_QUESTION = 2;
+    public static final int COLUMN_ANSWER = 3;
+    public static final int COLUMN_CORRECT_ANSWER = 4;
+    public static final int COLUMN_TIME_TAKEN = 5;
+    private static final int COLUMN_COUNT = 6;
+
+    private static final int MAGIC = 0x51434F4C; // "QCOL"
+    private static final int VERSION = 1;
+    private static final DateTimeFormatter CSV_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path file;
+    private final String roomCode;
+    private final int rowCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final int minQuestion;
+    private final int maxQuestion;
+    private final String[] players;
+    private final long[] columnOffsets;
+    private final int[] columnLengths;
+
+    private SessionArchive(Path file, String roomCode, int rowCount, long minTimestamp, long maxTimestamp,
+                           int minQuestion, int maxQuestion, String[] players,
+                           long[] columnOffsets, int[] columnLengths) {
+        this.file = file;
+        this.roomCode = roomCode;
+        this.rowCount = rowCount;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.minQuestion = minQuestion;
+        this.maxQuestion = maxQuestion;
+        this.players = players;
+        this.columnOffsets = columnOffsets;
+        this.columnLengths = columnLengths;
+    }
+
+    /**
+     * Converts a session log written by {@link quizapp.util.Logger} into the
+     * columnar format.
+     */
+    public static void compact(Path csvFile, Path archiveFile, String roomCode) throws IOException {
+        List<String> lines = Files.readAllLines(csvFile, StandardCharsets.UTF_8);
+        int rowCount = Math.max(0, lines.size() - 1);
+
+        long[] timestamps = new long[rowCount];
+        int[][] columns = new int[COLUMN_COUNT][rowCount];
+        Map<String, Integer> dictionary = new HashMap<>();
+
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        int minQuestion = Integer.MAX_VALUE;
+        int maxQuestion = Integer.MIN_VALUE;
+        int rows = 0;
+
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i);
+            // Player names are written unquoted, so fields are taken from both
+            // ends and whatever remains in the middle is the name.
+            int first = line.indexOf(',');
+            int[] commas = new int[4];
+            int end = line.length();
+            boolean valid = first > 0;
+            for (int c = 3; c >= 0 && valid; c--) {
+                end = line.lastIndexOf(',', end - 1);
+                commas[c] = end;
+                valid = end > first;
+            }
+            if (!valid) {
+                continue;
+            }
+
+            long timestamp;
+            try {
+                timestamp = LocalDateTime.parse(line.substring(0, first), CSV_TIMESTAMP).toEpochSecond(ZoneOffset.UTC);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            String name = line.substring(first + 1, commas[0]);
+            int question = parseInt(line.substring(commas[0] + 1, commas[1]));
+
+            timestamps[rows] = timestamp;
+            columns[COLUMN_PLAYER][rows] = dictionary.computeIfAbsent(name, n -> dictionary.size());
+            columns[COLUMN_QUESTION][rows] = question;
+            columns[COLUMN_ANSWER][rows] = parseInt(line.substring(commas[1] + 1, commas[2]));
+            columns[COLUMN_CORRECT_ANSWER][rows] = parseInt(line.substring(commas[2] + 1, commas[3]));
+            columns[COLUMN_TIME_TAKEN][rows] = parseInt(line.substring(commas[3] + 1));
+
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            minQuestion = Math.min(minQuestion, question);
+            maxQuestion = Math.max(maxQuestion, question);
+            rows++;
+        }
+
+        if (rows == 0) {
+            minTimestamp = maxTimestamp = 0;
+            minQuestion = maxQuestion = 0;
+        }
+        // Timestamps are stored relative to the file minimum
+        for (int i = 0; i < rows; i++) {
+            columns[COLUMN_TIMESTAMP][i] = (int) (timestamps[i] - minTimestamp);
+        }
+
+        String[] dictionaryNames = new String[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            dictionaryNames[entry.getValue()] = entry.getKey();
+        }
+
+        byte[][] encoded = new byte[COLUMN_COUNT][];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            encoded[c] = deflate(encodeVarints(columns[c], rows));
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeUTF(roomCode);
+        header.writeInt(rows);
+        header.writeLong(minTimestamp);
+        header.writeLong(maxTimestamp);
+        header.writeInt(minQuestion);
+        header.writeInt(maxQuestion);
+        header.writeInt(dictionaryNames.length);
+        for (String name : dictionaryNames) {
+            header.writeUTF(name);
+        }
+        for (byte[] column : encoded) {
+            header.writeInt(column.length);
+        }
+        header.flush();
+
+        Path tempFile = archiveFile.resolveSibling(archiveFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer lengthPrefix = ByteBuffer.allocate(4).putInt(headerBytes.size());
+            lengthPrefix.flip();
+            channel.write(lengthPrefix);
+            channel.write(ByteBuffer.wrap(headerBytes.toByteArray()));
+            for (byte[] column : encoded) {
+                channel.write(ByteBuffer.wrap(column));
+            }
+        }
+        Files.move(tempFile, archiveFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads only the header of an archive file; column data is read on demand.
+     */
+    public static SessionArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer lengthPrefix = ByteBuffer.allocate(4);
+            readFully(channel, lengthPrefix);
+            int headerLength = lengthPrefix.flip().getInt();
+            ByteBuffer headerBytes = ByteBuffer.allocate(headerLength);
+            readFully(channel, headerBytes);
+
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBytes.array()));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("Not a session archive: " + file);
+            }
+            String roomCode = header.readUTF();
+            int rowCount = header.readInt();
+            long minTimestamp = header.readLong();
+            long maxTimestamp = header.readLong();
+            int minQuestion = header.readInt();
+            int maxQuestion = header.readInt();
+            String[] players = new String[header.readInt()];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = header.readUTF();
+            }
+
+            long[] columnOffsets = new long[COLUMN_COUNT];
+            int[] columnLengths = new int[COLUMN_COUNT];
+            long offset = 4L + headerLength;
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                columnLengths[c] = header.readInt();
+                columnOffsets[c] = offset;
+                offset += columnLengths[c];
+            }
+
+            return new SessionArchive(file, roomCode, rowCount, minTimestamp, maxTimestamp,
+                    minQuestion, maxQuestion, players, columnOffsets, columnLengths);
+        }
+    }
+
+    /**
+     * Decodes a single column. Timestamps are returned relative to
+     * {@link #getMinTimestamp()}.
+     */
+    public int[] readColumn(int column) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(columnLengths[column]);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(columnOffsets[column]);
+            readFully(channel, compressed);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            // Every value takes at most five bytes as a varint
+            byte[] raw = new byte[rowCount * 5];
+            int rawLength = 0;
+            while (!inflater.finished() && rawLength < raw.length) {
+                int n = inflater.inflate(raw, rawLength, raw.length - rawLength);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                rawLength += n;
+            }
+            return decodeVarints(raw, rawLength, rowCount);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column " + column + " in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns true if any row of this file may fall within the given range of
+     * epoch seconds (inclusive).
+     */
+    public boolean overlaps(long fromTimestamp, long toTimestamp) {
+        return rowCount > 0 && maxTimestamp >= fromTimestamp && minTimestamp <= toTimestamp;
+    }
+
+    /**
+     * Returns the dictionary id of a player, or -1 if the player never
+     * answered in this session.
+     */
+    public int playerId(String name) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getRoomCode() {
+        return roomCode;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public int getMinQuestion() {
+        return minQuestion;
+    }
+
+    public int getMaxQuestion() {
+        return maxQuestion;
+    }
+
+    public String[] getPlayers() {
+        return players;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] encodeVarints(int[] values, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 2);
+        for (int i = 0; i < count; i++) {
+            int v = (values[i] << 1) ^ (values[i] >> 31); // zigzag
+            while ((v & ~0x7F) != 0) {
+                out.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.write(v);
+        }
+        return out.toByteArray();
+    }
+
+    private static int[] decodeVarints(byte[] raw, int length, int count) {
+        int[] values = new int[count];
+        int pos = 0;
+        for (int i = 0; i < count && pos < length; i++) {
+            int v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = raw[pos++];
+                v |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && pos < length);
+            values[i] = (v >>> 1) ^ -(v & 1);
+        }
+        return values;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of archive");
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package quizapp.model;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a player in the quiz game.
@@ -10,13 +11,19 @@ public class Player implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private String name;
-    private int correctAnswers;
+    // Written only by the scoring shard that owns the player, read by the
+    // snapshot, admin and UI threads
+    private volatile int correctAnswers;
+    private volatile int score;
     private boolean hasAnswered;
     private long answeredTime;
+    private int slot = -1;
+    private AtomicInteger rejectedAnswers = new AtomicInteger();
 
     public Player(String name) {
         this.name = name;
         this.correctAnswers = 0;
+        this.score = 0;
         this.hasAnswered = false;
         this.answeredTime = 0;
     }
@@ -29,10 +36,26 @@ public class Player implements Serializable {
         return correctAnswers;
     }
 
+    public void setCorrectAnswers(int correctAnswers) {
+        this.correctAnswers = correctAnswers;
+    }
+
     public void incrementCorrectAnswers() {
         this.correctAnswers++;
     }
 
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public void addScore(int points) {
+        this.score += points;
+    }
+
     public boolean hasAnswered() {
         return hasAnswered;
     }
@@ -54,6 +77,44 @@ public class Player implements Serializable {
         this.answeredTime = answeredTime;
     }
 
+    /**
+     * Answers the server refused: duplicates, answers to a question that is
+     * not open, or options that do not exist.
+     */
+    public int getRejectedAnswers() {
+        return rejectedAnswers.get();
+    }
+
+    public int incrementRejectedAnswers() {
+        return rejectedAnswers.incrementAndGet();
+    }
+
+    /**
+     * Index assigned by the server when the player joins; used to partition
+     * per-player work.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * A copy of the player's name, slot, score and answer counts as they
+     * are now, for ranking and display while the server keeps scoring this
+     * one.
+     */
+    public Player snapshot() {
+        Player copy = new Player(name);
+        copy.correctAnswers = correctAnswers;
+        copy.score = score;
+        copy.slot = slot;
+        copy.rejectedAnswers.set(rejectedAnswers.get());
+        return copy;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Player) {
@@ -0,0 +1,154 @@
+package quizapp.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a quiz from a plain text file, so a quiz can be prepared ahead of
+ * time and hosted without the setup screen:
+ *
+ * <pre>
+ * # Lines starting with # are comments
+ * title: Capitals
+ * time: 20
+ *
+ * ? What is the capital of France?
+ * - Berlin
+ * * Paris
+ * - Madrid
+ * - Rome
+ *
+ * ? What is the capital of Japan?
+ * time: 10
+ * * Tokyo
+ * - Kyoto
+ * </pre>
+ *
+ * A question starts with "?", followed by two to four options: "*" marks
+ * the correct one and "-" the others. "time:" before the first question
+ * sets the default time limit in seconds; inside a question it overrides
+ * it for that question.
+ */
+public final class QuizFile {
+
+    public static final int DEFAULT_TIME_LIMIT = 10;
+    private static final int MIN_OPTIONS = 2;
+    private static final int MAX_OPTIONS = 4;
+
+    private QuizFile() {
+    }
+
+    public static Quiz load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader, path.getFileName().toString());
+        }
+    }
+
+    /**
+     * Reads a quiz in the same format from any source, e.g. a request body.
+     * The name is used unless the text sets a title.
+     */
+    public static Quiz parse(Reader source, String name) throws IOException {
+        Quiz quiz = new Quiz();
+        quiz.setName(name);
+        List<Question> questions = new ArrayList<>();
+        int defaultTimeLimit = DEFAULT_TIME_LIMIT;
+
+        String text = null;
+        List<String> options = new ArrayList<>();
+        int correctIndex = -1;
+        int timeLimit = 0;
+        int questionLine = 0;
+
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.startsWith("?")) {
+                if (text != null) {
+                    questions.add(question(text, options, correctIndex, timeLimit, questionLine));
+                }
+                text = value(line.substring(1), lineNumber);
+                options = new ArrayList<>();
+                correctIndex = -1;
+                timeLimit = defaultTimeLimit;
+                questionLine = lineNumber;
+            } else if (line.startsWith("*") || line.startsWith("-")) {
+                if (text == null) {
+                    throw new IOException("line " + lineNumber + ": option before the first question");
+                }
+                if (line.startsWith("*")) {
+                    if (correctIndex >= 0) {
+                        throw new IOException("line " + lineNumber + ": more than one correct option");
+                    }
+                    correctIndex = options.size();
+                }
+                options.add(value(line.substring(1), lineNumber));
+            } else if (line.startsWith("time:")) {
+                int seconds = parseSeconds(line.substring(5).trim(), lineNumber);
+                if (text == null) {
+                    defaultTimeLimit = seconds;
+                } else {
+                    timeLimit = seconds;
+                }
+            } else if (line.startsWith("title:")) {
+                quiz.setName(value(line.substring(6), lineNumber));
+            } else {
+                throw new IOException("line " + lineNumber + ": expected a question, option or setting");
+            }
+        }
+
+        if (text != null) {
+            questions.add(question(text, options, correctIndex, timeLimit, questionLine));
+        }
+        if (questions.isEmpty()) {
+            throw new IOException("no questions in " + name);
+        }
+        quiz.setQuestions(questions);
+        return quiz;
+    }
+
+    private static Question question(String text, List<String> options, int correctIndex, int timeLimit,
+                                     int lineNumber) throws IOException {
+        if (options.size() < MIN_OPTIONS || options.size() > MAX_OPTIONS) {
+            throw new IOException("line " + lineNumber + ": a question needs " + MIN_OPTIONS + " to " +
+                    MAX_OPTIONS + " options, found " + options.size());
+        }
+        if (correctIndex < 0) {
+            throw new IOException("line " + lineNumber + ": no option is marked correct with *");
+        }
+        return new Question(text, options.toArray(new String[0]), correctIndex, timeLimit);
+    }
+
+    private static String value(String raw, int lineNumber) throws IOException {
+        String value = raw.trim();
+        if (value.isEmpty()) {
+            throw new IOException("line " + lineNumber + ": empty text");
+        }
+        return value;
+    }
+
+    private static int parseSeconds(String raw, int lineNumber) throws IOException {
+        try {
+            int seconds = Integer.parseInt(raw);
+            if (seconds > 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IOException("line " + lineNumber + ": time must be a positive number of seconds");
+    }
+}
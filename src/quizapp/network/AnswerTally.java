@@ -0,0 +1,42 @@
+package quizapp.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-option answer counts for the question that is currently open.
+ * Each option has its own striped counter, so recording an answer is O(1)
+ * and never contends on a shared lock even when a whole room answers at once.
+ */
+public class AnswerTally {
+
+    private final LongAdder[] counts;
+
+    public AnswerTally(int optionCount) {
+        counts = new LongAdder[optionCount];
+        for (int i = 0; i < optionCount; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(int answerIndex) {
+        if (answerIndex >= 0 && answerIndex < counts.length) {
+            counts[answerIndex].increment();
+        }
+    }
+
+    public int[] snapshot() {
+        int[] snapshot = new int[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].intValue();
+        }
+        return snapshot;
+    }
+
+    public long total() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,81 @@
+package quizapp.network;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Which players have answered the open question, one bit per player slot.
+ *
+ * Marking a slot is a single compare-and-set on the word holding its bit,
+ * so the first answer from each player wins without any lock. Bits live in
+ * fixed-size segments that are added when a player with a higher slot joins;
+ * only adding a segment takes a lock.
+ */
+public class AnsweredSet {
+
+    private static final int SEGMENT_WORDS = 64; // 4096 slots per segment
+    private static final int SEGMENT_BITS = SEGMENT_WORDS * 64;
+
+    private volatile AtomicLongArray[] segments;
+
+    public AnsweredSet(int expectedSlots) {
+        int count = Math.max(1, (expectedSlots + SEGMENT_BITS - 1) / SEGMENT_BITS);
+        segments = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new AtomicLongArray(SEGMENT_WORDS);
+        }
+    }
+
+    /**
+     * Marks the slot as answered. Returns true only for the first call with
+     * a given slot.
+     */
+    public boolean markFirst(int slot) {
+        if (slot < 0) {
+            return false;
+        }
+        AtomicLongArray segment = segment(slot / SEGMENT_BITS);
+        int word = (slot % SEGMENT_BITS) >>> 6;
+        long mask = 1L << (slot & 63);
+        while (true) {
+            long current = segment.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (segment.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(int slot) {
+        if (slot < 0) {
+            return false;
+        }
+        AtomicLongArray[] current = segments;
+        int index = slot / SEGMENT_BITS;
+        if (index >= current.length) {
+            return false;
+        }
+        return (current[index].get((slot % SEGMENT_BITS) >>> 6) & (1L << (slot & 63))) != 0;
+    }
+
+    private AtomicLongArray segment(int index) {
+        AtomicLongArray[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = segments;
+            if (index >= current.length) {
+                AtomicLongArray[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new AtomicLongArray(SEGMENT_WORDS);
+                }
+                segments = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+}
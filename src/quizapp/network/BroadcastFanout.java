@@ -0,0 +1,633 @@
+package quizapp.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import quizapp.util.LatencySketch;
+import quizapp.util.Log;
+import quizapp.util.MetricsRegistry;
+
+/**
+ * Writes broadcasts from a pool of writer threads. Each connection is owned
+ * by one writer (chosen by player slot), so frames to a given client keep
+ * their order while different clients are written in parallel. Slots go to
+ * writers in blocks of {@link #CLIENTS_PER_WRITER}, and a writer's thread is
+ * only started with its first connection, so a small room runs one writer
+ * rather than the whole pool.
+ *
+ * Each broadcast is encoded once into a pooled buffer and queued on every
+ * connection's {@link OutboundQueue} straight away, then the writers are
+ * woken to drain them. Queuing on the caller's thread means a newer TIMER or
+ * standings frame supersedes an unsent one even while a client's socket is
+ * full. The buffer goes back to the pool when the last connection has
+ * written or dropped it.
+ *
+ * Writes are non-blocking, so a client that stops reading only holds up
+ * itself: its writer parks what did not fit, serves the other connections
+ * and retries it shortly after. A client that stays unwritable past the
+ * stall timeout is disconnected.
+ *
+ * Writers batch on a short tick: after being woken for non-critical frames
+ * they wait out the tick, so frames that arrive together (a timer tick,
+ * standings, the time-up) leave in a single gathering write per connection
+ * instead of one small write each. Critical frames cut the wait
+ * short. A tick of zero writes as soon as anything is queued.
+ *
+ * Keep-alives go out the same way: a caller only asks for one, and the
+ * connection's writer stamps it and adds it to the next batch, so the
+ * keep-alive sweep never waits on a client's socket.
+ *
+ * For question reveals it also measures reveal skew: the time between the
+ * first and the last client having the QUESTION frame written to its socket.
+ * Broadcast, queue depth and byte counts are kept in striped counters and
+ * sketches that {@link #registerMetrics} exposes.
+ */
+public class BroadcastFanout {
+
+    private static final GameServer.ClientHandler[] EMPTY = new GameServer.ClientHandler[0];
+    private static final int MAX_BATCH = 64;
+    private static final long STALL_RETRY_NANOS = 10_000_000L;
+    static final int CLIENTS_PER_WRITER = 128;
+    private static final Log LOG = Log.get(BroadcastFanout.class);
+
+    private final String roomCode;
+    private final HopLatencies hops;
+    private final Writer[] writers;
+    // Reveal skew in microseconds
+    private final LatencySketch revealSkew = new LatencySketch();
+    private final LongAdder supersededFrames = new LongAdder();
+    private final LongAdder writeCalls = new LongAdder();
+    private final LongAdder framesWritten = new LongAdder();
+    private final LongAdder stalledClientsDropped = new LongAdder();
+    // Time to queue a broadcast on every connection, in microseconds
+    private final LatencySketch broadcastMicros = new LatencySketch();
+    private final LongAdder[] bytesSent = newCounters();
+    private volatile long tickNanos;
+    private volatile long stallTimeoutNanos = Long.MAX_VALUE;
+    private long sampledAtNanos = System.nanoTime();
+    private long sampledWriteCalls;
+    private long sampledFramesWritten;
+    private volatile RevealTracker currentReveal;
+    private volatile LongConsumer revealSkewCallback;
+
+    private class Writer implements Runnable {
+        private final int index;
+        private volatile GameServer.ClientHandler[] connections = EMPTY;
+        private volatile boolean running = true;
+        private boolean started;
+        private boolean signalled;
+        private boolean urgent;
+        // When a held-back update next becomes due on a throttled connection
+        private long nextDueNanos = Long.MAX_VALUE;
+        private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH];
+        private final PooledBuffer[] batchFrames = new PooledBuffer[MAX_BATCH];
+        // Frames found waiting each time a connection was drained; one
+        // sketch per writer so writers never contend on it
+        private final LatencySketch queueDepth = new LatencySketch();
+
+        Writer(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    synchronized (this) {
+                        long remaining;
+                        while (!signalled && running) {
+                            if (nextDueNanos == Long.MAX_VALUE) {
+                                wait();
+                            } else if ((remaining = nextDueNanos - System.nanoTime()) > 0) {
+                                wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                            } else {
+                                break;
+                            }
+                        }
+                        long deadline = System.nanoTime() + tickNanos;
+                        while (!urgent && running && (remaining = deadline - System.nanoTime()) > 0) {
+                            wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                        }
+                        signalled = false;
+                        urgent = false;
+                    }
+                    drain();
+                } catch (InterruptedException e) {
+                    break;
+                } catch (RuntimeException e) {
+                    LOG.error("Error in broadcast writer", "room", roomCode, e);
+                }
+            }
+        }
+
+        /**
+         * Writes everything queued for each connection in one gathering
+         * write, a connection at a time, repeating while frames keep coming.
+         * Connections on a congested link only get timer and standings
+         * frames as often as their {@link LinkEstimator} allows; the rest
+         * stay conflated in the queue until due.
+         *
+         * Writes never block. When a client's socket buffer is full, what
+         * did not fit goes back to the front of its queue and the writer
+         * moves on to the next client, coming back to it on a short retry
+         * interval. A client that has not taken the rest of a batch within
+         * the stall timeout is disconnected.
+         */
+        private void drain() {
+            long nextDue = Long.MAX_VALUE;
+            boolean wrote = true;
+            while (wrote) {
+                wrote = false;
+                nextDue = Long.MAX_VALUE;
+                for (GameServer.ClientHandler handler : connections) {
+                    OutboundQueue outbound = handler.getOutbound();
+                    LinkEstimator link = handler.getLink();
+                    long now = System.nanoTime();
+                    boolean nonCriticalDue = link.nonCriticalDue(now);
+                    boolean sendsConflated = false;
+                    int count = 0;
+                    PooledBuffer frame;
+                    if (outbound.hasUnsent()) {
+                        // Finish the stalled batch before taking anything
+                        // new, so newer updates stay conflated meanwhile
+                        int offset = outbound.getUnsentOffset();
+                        while ((frame = outbound.pollUnsent()) != null) {
+                            add(count++, frame);
+                        }
+                        if (count > 0) {
+                            batch[0].position(offset);
+                        }
+                    } else {
+                        sendsConflated = nonCriticalDue && outbound.hasConflated();
+                        if (handler.takeKeepAliveRequest()) {
+                            addKeepAlive(count++, handler);
+                        }
+                        while (count < MAX_BATCH && (frame = outbound.poll(nonCriticalDue)) != null) {
+                            add(count++, frame);
+                        }
+                    }
+                    if (!nonCriticalDue && outbound.hasConflated()) {
+                        nextDue = Math.min(nextDue, link.nextNonCriticalNanos());
+                    }
+                    if (count == 0) {
+                        continue;
+                    }
+                    long bytes = 0;
+                    for (int i = 0; i < count; i++) {
+                        bytes += batch[i].remaining();
+                    }
+                    queueDepth.record(count);
+                    boolean sent = send(handler, count, bytes);
+                    long written = System.nanoTime();
+                    int done = 0;
+                    while (done < count && !batch[done].hasRemaining()) {
+                        done++;
+                    }
+                    finish(handler, 0, done, true, written);
+                    if (done == count) {
+                        wrote = true;
+                        link.writeFinished(bytes, now, written);
+                        if (sendsConflated) {
+                            link.nonCriticalSent(written);
+                        }
+                    } else if (sent && outbound.requeue(batchFrames, done, count, batch[done].position())) {
+                        clear(done, count);
+                        link.writeStalled(bytes, now);
+                        long stalledNanos = link.getStalledNanos(written);
+                        if (stalledNanos > stallTimeoutNanos) {
+                            evict(handler, stalledNanos);
+                        } else {
+                            nextDue = Math.min(nextDue, written + STALL_RETRY_NANOS);
+                        }
+                    } else {
+                        // Write failed or the client was removed meanwhile
+                        finish(handler, done, count, false, written);
+                    }
+                }
+            }
+            synchronized (this) {
+                nextDueNanos = nextDue;
+            }
+        }
+
+        private void add(int position, PooledBuffer frame) {
+            batchFrames[position] = frame;
+            batch[position] = frame.view(index);
+        }
+
+        /**
+         * Puts a keep-alive into the batch, stamped now so the round trip
+         * it measures starts as close to the write as possible. The handler
+         * keeps the stamp, since only its echo is accepted.
+         */
+        private void addKeepAlive(int position, GameServer.ClientHandler handler) {
+            PooledBuffer frame = BufferPool.SHARED.acquire(FrameViews.KeepAliveView.FRAME_SIZE);
+            long stampNanos = System.nanoTime();
+            handler.keepAliveStamped(stampNanos);
+            FrameViews.KeepAliveView.encode(frame.buffer(), stampNanos);
+            frame.buffer().flip();
+            add(position, frame);
+        }
+
+        /**
+         * Releases a run of frames from the batch that were either written
+         * in full or dropped, and accounts for them.
+         */
+        private void finish(GameServer.ClientHandler handler, int from, int to, boolean sent, long writtenNanos) {
+            RevealTracker reveal = currentReveal;
+            for (int i = from; i < to; i++) {
+                if (sent) {
+                    countBytes(batch[i]);
+                }
+                if (reveal != null && reveal.owns(batchFrames[i])) {
+                    reveal.connectionDone(sent);
+                    if (sent) {
+                        handler.questionWritten(reveal.traceId, writtenNanos);
+                        hops.record(HopLatencies.Hop.QUEUE, (writtenNanos - reveal.encodedNanos) / 1000);
+                    }
+                }
+                batchFrames[i].release();
+            }
+            clear(from, to);
+        }
+
+        private void clear(int from, int to) {
+            for (int i = from; i < to; i++) {
+                batchFrames[i] = null;
+                batch[i] = null;
+            }
+        }
+
+        private void countBytes(ByteBuffer frame) {
+            // Views were written out in full, so their limit is the frame size
+            int type = frame.get(MessageCodec.HEADER_SIZE) & 0xFF;
+            if (type < bytesSent.length) {
+                bytesSent[type].add(frame.limit());
+            }
+        }
+
+        /**
+         * Makes one non-blocking write of the batch. Returns false if the
+         * connection failed; the client is removed once its reader sees it.
+         */
+        private boolean send(GameServer.ClientHandler handler, int count, long bytes) {
+            FlightEvents.ClientSend event = new FlightEvents.ClientSend();
+            event.begin();
+            long written = -1;
+            try {
+                written = handler.sendFrames(batch, count);
+                writeCalls.increment();
+                framesWritten.add(count);
+                return true;
+            } catch (IOException e) {
+                return false;
+            } finally {
+                if (event.shouldCommit()) {
+                    event.room = roomCode;
+                    event.slot = handler.getPlayer().getSlot();
+                    event.frames = count;
+                    event.bytes = Math.max(0, written);
+                    event.writeCalls = 1;
+                    event.succeeded = written >= 0;
+                    event.commit();
+                }
+            }
+        }
+
+        private void evict(GameServer.ClientHandler handler, long stalledNanos) {
+            stalledClientsDropped.increment();
+            LOG.warn("Dropping client that stopped reading", "room", roomCode,
+                    "player", handler.getPlayer().getName(), "stalledMillis", stalledNanos / 1_000_000);
+            handler.close();
+        }
+
+        synchronized void signal(boolean urgentFrame) {
+            signalled = true;
+            urgent |= urgentFrame;
+            notify();
+        }
+
+        synchronized void add(GameServer.ClientHandler handler) {
+            if (!started && running) {
+                Thread thread = new Thread(this, "broadcast-writer-" + index);
+                thread.setDaemon(true);
+                thread.start();
+                started = true;
+            }
+            GameServer.ClientHandler[] current = connections;
+            GameServer.ClientHandler[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = handler;
+            connections = next;
+        }
+
+        synchronized void remove(GameServer.ClientHandler handler) {
+            GameServer.ClientHandler[] current = connections;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == handler) {
+                    GameServer.ClientHandler[] next = new GameServer.ClientHandler[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    connections = next;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects first and last write completion across all connections for
+     * one reveal. Starts with one pending count, held by the broadcasting
+     * thread until every connection has been queued; whatever that thread
+     * sets before letting go of it is visible to the writer that finishes
+     * the reveal.
+     */
+    private class RevealTracker {
+        private final PooledBuffer frame;
+        private final FlightEvents.Reveal event;
+        private final long traceId;
+        private final long encodedNanos;
+        private final AtomicInteger pendingConnections = new AtomicInteger(1);
+        private final AtomicInteger sentConnections = new AtomicInteger();
+        private final AtomicLong firstWrite = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastWrite = new AtomicLong(Long.MIN_VALUE);
+        private int queuedConnections;
+
+        RevealTracker(PooledBuffer frame, FlightEvents.Reveal event, long traceId, long encodedNanos) {
+            this.frame = frame;
+            this.event = event;
+            this.traceId = traceId;
+            this.encodedNanos = encodedNanos;
+        }
+
+        /**
+         * Whether a frame is this reveal's QUESTION frame. Pooled buffers
+         * are reused once released, so identity only counts while some
+         * connection has yet to finish with the frame and still holds it.
+         */
+        boolean owns(PooledBuffer candidate) {
+            return candidate == frame && pendingConnections.get() > 0;
+        }
+
+        void connectionQueued() {
+            queuedConnections++;
+            pendingConnections.incrementAndGet();
+        }
+
+        void connectionDone(boolean sent) {
+            if (sent) {
+                long now = System.nanoTime();
+                firstWrite.accumulateAndGet(now, Math::min);
+                lastWrite.accumulateAndGet(now, Math::max);
+                sentConnections.incrementAndGet();
+            }
+            if (pendingConnections.decrementAndGet() != 0) {
+                return;
+            }
+            long skewNanos = firstWrite.get() == Long.MAX_VALUE ? 0 : lastWrite.get() - firstWrite.get();
+            if (event.shouldCommit()) {
+                event.clients = queuedConnections;
+                event.failed = queuedConnections - sentConnections.get();
+                event.skewNanos = skewNanos;
+                event.commit();
+            }
+            if (firstWrite.get() != Long.MAX_VALUE) {
+                long skewMicros = skewNanos / 1000;
+                revealSkew.record(skewMicros);
+                LongConsumer callback = revealSkewCallback;
+                if (callback != null) {
+                    callback.accept(skewMicros);
+                }
+            }
+        }
+    }
+
+    public BroadcastFanout(String roomCode, int writerCount, HopLatencies hops) {
+        this.roomCode = roomCode;
+        this.hops = hops;
+        writers = new Writer[Math.max(1, writerCount)];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Writer(i);
+        }
+    }
+
+    private Writer writerFor(GameServer.ClientHandler handler) {
+        int block = Math.floorDiv(handler.getPlayer().getSlot(), CLIENTS_PER_WRITER);
+        return writers[Math.floorMod(block, writers.length)];
+    }
+
+    public void addClient(GameServer.ClientHandler handler) {
+        writerFor(handler).add(handler);
+    }
+
+    /**
+     * Stops writing to a client and drops whatever was still queued for it.
+     */
+    public void removeClient(GameServer.ClientHandler handler) {
+        writerFor(handler).remove(handler);
+        handler.getOutbound().close(frame -> {
+            RevealTracker reveal = currentReveal;
+            if (reveal != null && reveal.owns(frame)) {
+                reveal.connectionDone(false);
+            }
+        });
+    }
+
+    /**
+     * Has the client's writer send it a keep-alive with its next batch, so
+     * the caller never waits on the client's socket.
+     */
+    public void requestKeepAlive(GameServer.ClientHandler handler) {
+        handler.requestKeepAlive();
+        writerFor(handler).signal(false);
+    }
+
+    public void broadcast(Message message) {
+        broadcast(message.getType(), MessageCodec.encode(message, BufferPool.SHARED));
+    }
+
+    /**
+     * Broadcasts a frame that is already encoded, taking over the caller's
+     * reference to it.
+     */
+    public void broadcast(MessageType type, PooledBuffer frame) {
+        long start = System.nanoTime();
+        enqueue(type, frame, null);
+        frame.release();
+        signalWriters(OutboundQueue.isCritical(type));
+        broadcastMicros.record((System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Broadcasts a question and records the reveal skew once every client
+     * has been written. Each client's write time is kept on its handler to
+     * time the wire hop when the client's render ack arrives.
+     */
+    public void broadcastReveal(Message message) {
+        // The flight event spans the whole fan-out, from encoding until the
+        // last client has been written
+        FlightEvents.Reveal event = new FlightEvents.Reveal();
+        event.begin();
+        long start = System.nanoTime();
+        PooledBuffer frame = MessageCodec.encode(message, BufferPool.SHARED);
+        long encoded = System.nanoTime();
+        hops.record(HopLatencies.Hop.ENCODE, (encoded - start) / 1000);
+        RevealTracker tracker = new RevealTracker(frame, event, message.getTraceId(), encoded);
+        currentReveal = tracker;
+        enqueue(message.getType(), frame, tracker);
+        signalWriters(true);
+        long queueNanos = System.nanoTime() - start;
+        if (event.isEnabled()) {
+            event.room = roomCode;
+            event.question = message.getQuestionNumber();
+            event.bytes = frame.buffer().limit();
+            event.queueNanos = queueNanos;
+        }
+        tracker.connectionDone(false);
+        frame.release();
+        broadcastMicros.record(queueNanos / 1000);
+    }
+
+    private void enqueue(MessageType type, PooledBuffer frame, RevealTracker tracker) {
+        for (Writer writer : writers) {
+            for (GameServer.ClientHandler handler : writer.connections) {
+                if (tracker != null) {
+                    tracker.connectionQueued();
+                }
+                int superseded = handler.getOutbound().offer(type, frame.retain());
+                if (superseded > 0) {
+                    supersededFrames.add(superseded);
+                } else if (superseded < 0 && tracker != null) {
+                    // Client was removed in the meantime
+                    tracker.connectionDone(false);
+                }
+            }
+        }
+    }
+
+    private void signalWriters(boolean urgent) {
+        for (Writer writer : writers) {
+            writer.signal(urgent);
+        }
+    }
+
+    /**
+     * Sets how long writers gather non-critical frames before writing them.
+     */
+    public void setTickMillis(long tickMillis) {
+        this.tickNanos = Math.max(0, tickMillis) * 1_000_000;
+    }
+
+    /**
+     * Sets how long a client may leave a batch unread in its socket buffer
+     * before it is disconnected.
+     */
+    public void setStallTimeoutMillis(long timeoutMillis) {
+        this.stallTimeoutNanos = Math.max(0, timeoutMillis) * 1_000_000;
+    }
+
+    /**
+     * Write calls per second and frames per write call since the previous
+     * sample, as {syscallsPerSecond, framesPerWrite}.
+     */
+    public synchronized double[] sampleWriteRates() {
+        long now = System.nanoTime();
+        long calls = writeCalls.sum();
+        long frames = framesWritten.sum();
+        long deltaCalls = calls - sampledWriteCalls;
+        long deltaFrames = frames - sampledFramesWritten;
+        double seconds = Math.max(1, now - sampledAtNanos) / 1_000_000_000.0;
+        sampledAtNanos = now;
+        sampledWriteCalls = calls;
+        sampledFramesWritten = frames;
+        return new double[] {deltaCalls / seconds, deltaCalls == 0 ? 0 : (double) deltaFrames / deltaCalls};
+    }
+
+    /**
+     * Reveal skew of every question so far, in microseconds.
+     */
+    public LatencySketch getRevealSkew() {
+        return revealSkew;
+    }
+
+    /**
+     * Frames found waiting each time a writer drained a connection, across
+     * all writers.
+     */
+    public LatencySketch getQueueDepth() {
+        List<LatencySketch> sketches = new ArrayList<>(writers.length);
+        for (Writer writer : writers) {
+            sketches.add(writer.queueDepth);
+        }
+        return LatencySketch.merged(sketches);
+    }
+
+    /**
+     * Number of queued TIMER and standings frames that were replaced or
+     * dropped before being written because a newer frame made them stale.
+     */
+    public long getSupersededFrames() {
+        return supersededFrames.sum();
+    }
+
+    /**
+     * Receives the reveal skew of each question, in microseconds, once known.
+     */
+    public void setRevealSkewCallback(LongConsumer callback) {
+        this.revealSkewCallback = callback;
+    }
+
+    /**
+     * Registers this fanout's counters and sketches under the given labels.
+     */
+    public void registerMetrics(MetricsRegistry registry, String... labels) {
+        registry.histogram("quiz_broadcast_micros", "Time to queue a broadcast for every client",
+                broadcastMicros, labels);
+        registry.histogram("quiz_queue_depth_frames", "Frames waiting when a writer drains a client's queue",
+                this::getQueueDepth, labels);
+        registry.histogram("quiz_reveal_skew_micros", "Time between the first and last client receiving a question",
+                revealSkew, labels);
+        registry.counter("quiz_superseded_frames_total", "Queued frames replaced by newer ones before being sent",
+                supersededFrames::sum, labels);
+        registry.counter("quiz_write_calls_total", "Socket write calls made by broadcast writers",
+                writeCalls::sum, labels);
+        registry.counter("quiz_frames_sent_total", "Broadcast frames written to clients",
+                framesWritten::sum, labels);
+        registry.counter("quiz_stalled_clients_dropped_total", "Clients disconnected for not reading their broadcasts",
+                stalledClientsDropped::sum, labels);
+        for (MessageType type : MessageType.values()) {
+            registry.counter("quiz_bytes_sent_total", "Broadcast bytes written to clients, by message type",
+                    bytesSent[type.ordinal()]::sum, withLabel(labels, "type", type.name()));
+        }
+    }
+
+    static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[MessageType.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    static String[] withLabel(String[] labels, String name, String value) {
+        String[] extended = Arrays.copyOf(labels, labels.length + 2);
+        extended[labels.length] = name;
+        extended[labels.length + 1] = value;
+        return extended;
+    }
+
+    public void shutdown() {
+        for (Writer writer : writers) {
+            // Cleared under the writer's lock, so an unstarted writer stays so
+            synchronized (writer) {
+                writer.running = false;
+            }
+            writer.signal(true);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package quizapp.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-classed pool of direct buffers for frame encoding and socket reads.
+ *
+ * Each size class keeps a bounded stack of released buffers, so once a game
+ * is under way encoding and writing a frame borrows an existing buffer
+ * instead of allocating one. Requests larger than the biggest class get a
+ * one-off buffer that is left to the garbage collector when released.
+ */
+public class BufferPool {
+
+    private static final int[] SIZE_CLASSES = {256, 4 * 1024, 64 * 1024, 1024 * 1024};
+    private static final int MAX_FREE_PER_CLASS = 256;
+
+    public static final BufferPool SHARED = new BufferPool();
+
+    private final PooledBuffer[][] free = new PooledBuffer[SIZE_CLASSES.length][MAX_FREE_PER_CLASS];
+    private final int[] freeCount = new int[SIZE_CLASSES.length];
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong acquisitions = new AtomicLong();
+
+    /**
+     * Borrows a cleared buffer of at least the given capacity. The caller
+     * holds one reference and must release it.
+     */
+    public PooledBuffer acquire(int minCapacity) {
+        acquisitions.incrementAndGet();
+        int sizeClass = sizeClassFor(minCapacity);
+        if (sizeClass < 0) {
+            allocatedBytes.addAndGet(minCapacity);
+            return new PooledBuffer(ByteBuffer.allocateDirect(minCapacity), this, -1);
+        }
+
+        PooledBuffer pooled = null;
+        synchronized (free[sizeClass]) {
+            int count = freeCount[sizeClass];
+            if (count > 0) {
+                pooled = free[sizeClass][--count];
+                free[sizeClass][count] = null;
+                freeCount[sizeClass] = count;
+            }
+        }
+        if (pooled == null) {
+            allocatedBytes.addAndGet(SIZE_CLASSES[sizeClass]);
+            return new PooledBuffer(ByteBuffer.allocateDirect(SIZE_CLASSES[sizeClass]), this, sizeClass);
+        }
+        pooled.reuse();
+        return pooled;
+    }
+
+    void recycle(PooledBuffer pooled) {
+        int sizeClass = pooled.sizeClass();
+        if (sizeClass < 0) {
+            return;
+        }
+        synchronized (free[sizeClass]) {
+            int count = freeCount[sizeClass];
+            if (count < MAX_FREE_PER_CLASS) {
+                free[sizeClass][count] = pooled;
+                freeCount[sizeClass] = count + 1;
+            }
+        }
+    }
+
+    private static int sizeClassFor(int capacity) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (capacity <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Total bytes of direct memory this pool has ever allocated. Flat during
+     * steady-state play.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+}
@@ -0,0 +1,354 @@
+package quizapp.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import quizapp.util.LatencySketch;
+
+/**
+ * Reads a {@link FrameCapture} file and reports bandwidth per message type,
+ * the gaps between frames on each connection, how frames bunch into bursts,
+ * and clients whose traffic stands out from the rest.
+ *
+ * Directions are as seen by the process that wrote the capture: on a server
+ * "in" is what clients sent. Connections are named from their JOIN frame,
+ * unless the ring has already overwritten it.
+ *
+ * Usage: CaptureAnalyzer capture-file [--burst-ms 1] [--silence-ms 10000] [--flood-factor 4]
+ */
+public class CaptureAnalyzer {
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final String[] DIRECTIONS = {"in", "out"};
+
+    private final long burstNanos;
+    private final long silenceNanos;
+    private final double floodFactor;
+
+    // Indexed by direction, then type ordinal; the last slot is unknown types
+    private final long[][] typeFrames = new long[2][TYPES.length + 1];
+    private final long[][] typeBytes = new long[2][TYPES.length + 1];
+    private final LatencySketch[] gapMicros = {new LatencySketch(), new LatencySketch()};
+    private final LatencySketch[] burstFrames = {new LatencySketch(), new LatencySketch()};
+    private final LatencySketch[] burstBytes = {new LatencySketch(), new LatencySketch()};
+    private final Map<Integer, ConnectionStats> connections = new TreeMap<>();
+    private long startEpochMicros;
+    private long firstNanos = -1;
+    private long lastNanos;
+    private long frames;
+    private long bytes;
+    private long truncatedFrames;
+    private long overwrittenBlocks;
+
+    /**
+     * What one connection sent and received.
+     */
+    private static final class ConnectionStats {
+        final int id;
+        String name;
+        long firstNanos = -1;
+        long lastNanos;
+        final long[] frames = new long[2];
+        final long[] bytes = new long[2];
+        final long[] lastFrameNanos = {-1, -1};
+        final int[] burstFrames = new int[2];
+        final long[] burstBytes = new long[2];
+        long longestInboundGap;
+        long unknownFrames;
+        long malformedFrames;
+        final Map<Integer, Integer> answersByQuestion = new HashMap<>();
+
+        ConnectionStats(int id) {
+            this.id = id;
+        }
+
+        String label() {
+            return name != null ? "#" + id + " " + name : "#" + id;
+        }
+
+        double inboundRate() {
+            double seconds = (lastNanos - firstNanos) / 1e9;
+            return seconds > 0 ? frames[FrameCapture.INBOUND] / seconds : 0;
+        }
+    }
+
+    public CaptureAnalyzer(long burstMillis, long silenceMillis, double floodFactor) {
+        this.burstNanos = burstMillis * 1_000_000;
+        this.silenceNanos = silenceMillis * 1_000_000;
+        this.floodFactor = floodFactor;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = null;
+        long burstMillis = 1;
+        long silenceMillis = 10000;
+        double floodFactor = 4;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--burst-ms":
+                    burstMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--silence-ms":
+                    silenceMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--flood-factor":
+                    floodFactor = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--") || file != null) {
+                        System.err.println("Unknown option " + args[i]);
+                        return;
+                    }
+                    file = Paths.get(args[i]);
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: CaptureAnalyzer capture-file [--burst-ms 1] [--silence-ms 10000] [--flood-factor 4]");
+            return;
+        }
+
+        CaptureAnalyzer analyzer = new CaptureAnalyzer(burstMillis, silenceMillis, floodFactor);
+        analyzer.read(file);
+        System.out.print(analyzer.report());
+    }
+
+    /**
+     * Reads every record still in the capture, oldest block first.
+     */
+    public void read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.limit() < FrameCapture.FILE_HEADER_SIZE || map.getInt(0) != FrameCapture.MAGIC) {
+                throw new IOException(file + " is not a frame capture");
+            }
+            if (map.getInt(4) != FrameCapture.VERSION) {
+                throw new IOException("Unsupported capture version " + map.getInt(4));
+            }
+            int blockSize = map.getInt(8);
+            int blockCount = map.getInt(12);
+            startEpochMicros = map.getLong(16);
+            if ((long) FrameCapture.FILE_HEADER_SIZE + (long) blockSize * blockCount > map.limit()) {
+                throw new IOException(file + " is truncated");
+            }
+
+            List<long[]> blocks = new ArrayList<>();
+            for (int i = 0; i < blockCount; i++) {
+                int offset = FrameCapture.FILE_HEADER_SIZE + i * blockSize;
+                long sequence = map.getLong(offset);
+                if (sequence > 0) {
+                    blocks.add(new long[] {sequence, offset});
+                }
+            }
+            blocks.sort((a, b) -> Long.compare(a[0], b[0]));
+            if (!blocks.isEmpty()) {
+                overwrittenBlocks = blocks.get(0)[0] - 1;
+            }
+
+            for (long[] block : blocks) {
+                int offset = (int) block[1];
+                int used = Math.min(map.getInt(offset + 8), blockSize);
+                int position = FrameCapture.BLOCK_HEADER_SIZE;
+                while (position + FrameCapture.RECORD_HEADER_SIZE <= used) {
+                    int at = offset + position;
+                    int length = map.getInt(at);
+                    int captured = map.getInt(at + 4);
+                    if (captured < 0 || captured > length || position + FrameCapture.RECORD_HEADER_SIZE + captured > used) {
+                        break;
+                    }
+                    byte direction = map.get(at + 8);
+                    int connection = map.getInt(at + 9);
+                    long nanos = map.getLong(at + 13);
+                    ByteBuffer frame = map.slice(at + FrameCapture.RECORD_HEADER_SIZE, captured);
+                    add(direction == FrameCapture.INBOUND ? 0 : 1, connection, nanos, length, frame);
+                    position += FrameCapture.RECORD_HEADER_SIZE + captured;
+                }
+            }
+        }
+        for (ConnectionStats stats : connections.values()) {
+            for (int direction = 0; direction < 2; direction++) {
+                endBurst(stats, direction);
+            }
+        }
+    }
+
+    private void add(int direction, int connection, long nanos, int length, ByteBuffer frame) {
+        if (firstNanos < 0) {
+            firstNanos = nanos;
+        }
+        lastNanos = Math.max(lastNanos, nanos);
+        frames++;
+        bytes += length;
+        if (frame.limit() < length) {
+            truncatedFrames++;
+        }
+
+        MessageType type = null;
+        if (frame.limit() > MessageCodec.HEADER_SIZE) {
+            int typeIndex = frame.get(MessageCodec.HEADER_SIZE) & 0xFF;
+            type = typeIndex < TYPES.length ? TYPES[typeIndex] : null;
+        }
+        int typeSlot = type != null ? type.ordinal() : TYPES.length;
+        typeFrames[direction][typeSlot]++;
+        typeBytes[direction][typeSlot] += length;
+
+        ConnectionStats stats = connections.computeIfAbsent(connection, ConnectionStats::new);
+        if (stats.firstNanos < 0) {
+            stats.firstNanos = nanos;
+        }
+        stats.lastNanos = nanos;
+        stats.frames[direction]++;
+        stats.bytes[direction] += length;
+
+        long previous = stats.lastFrameNanos[direction];
+        if (previous >= 0) {
+            long gap = Math.max(0, nanos - previous);
+            gapMicros[direction].record(gap / 1000);
+            if (direction == FrameCapture.INBOUND) {
+                stats.longestInboundGap = Math.max(stats.longestInboundGap, gap);
+            }
+            if (gap >= burstNanos) {
+                endBurst(stats, direction);
+            }
+        }
+        stats.lastFrameNanos[direction] = nanos;
+        stats.burstFrames[direction]++;
+        stats.burstBytes[direction] += length;
+
+        if (type == null) {
+            stats.unknownFrames++;
+        } else if (type == MessageType.JOIN && frame.limit() == length) {
+            try {
+                stats.name = MessageCodec.decode(frame.position(MessageCodec.HEADER_SIZE)).getPlayerName();
+            } catch (IOException e) {
+                stats.malformedFrames++;
+            }
+        } else if (type == MessageType.ANSWER && frame.limit() >= FrameViews.AnswerView.FRAME_SIZE) {
+            int question = frame.getInt(MessageCodec.HEADER_SIZE + 1);
+            stats.answersByQuestion.merge(question, 1, Integer::sum);
+        }
+    }
+
+    private void endBurst(ConnectionStats stats, int direction) {
+        if (stats.burstFrames[direction] > 0) {
+            burstFrames[direction].record(stats.burstFrames[direction]);
+            burstBytes[direction].record(stats.burstBytes[direction]);
+            stats.burstFrames[direction] = 0;
+            stats.burstBytes[direction] = 0;
+        }
+    }
+
+    public String report() {
+        StringBuilder text = new StringBuilder();
+        double seconds = Math.max(1e-9, (lastNanos - Math.max(0, firstNanos)) / 1e9);
+        text.append(String.format("Capture started %s: %.1fs, %d frames, %.2f MB, %d connections%n",
+                Instant.ofEpochMilli(startEpochMicros / 1000), seconds, frames, bytes / (1024.0 * 1024.0),
+                connections.size()));
+        if (overwrittenBlocks > 0) {
+            text.append("Ring wrapped: the oldest " + overwrittenBlocks + " blocks were overwritten\n");
+        }
+        if (truncatedFrames > 0) {
+            text.append(truncatedFrames + " frames were larger than a block and only partly captured\n");
+        }
+
+        text.append(String.format("%nBandwidth by type%n%-13s %-3s %9s %12s %8s %10s%n",
+                "Type", "Dir", "Frames", "Bytes", "Avg", "KB/s"));
+        for (int direction = 0; direction < 2; direction++) {
+            for (int slot = 0; slot <= TYPES.length; slot++) {
+                long count = typeFrames[direction][slot];
+                if (count == 0) {
+                    continue;
+                }
+                long total = typeBytes[direction][slot];
+                text.append(String.format("%-13s %-3s %9d %12d %8.1f %10.2f%n",
+                        slot < TYPES.length ? TYPES[slot].name() : "unknown", DIRECTIONS[direction],
+                        count, total, (double) total / count, total / 1024.0 / seconds));
+            }
+        }
+
+        text.append(String.format("%nGaps between frames on a connection (ms)%n%-3s %9s %8s %8s %8s %9s%n",
+                "Dir", "Gaps", "p50", "p90", "p99", "max"));
+        for (int direction = 0; direction < 2; direction++) {
+            LatencySketch gaps = gapMicros[direction];
+            if (gaps.getCount() > 0) {
+                text.append(String.format("%-3s %9d %8.2f %8.2f %8.2f %9.2f%n", DIRECTIONS[direction], gaps.getCount(),
+                        gaps.quantile(0.5) / 1000.0, gaps.quantile(0.9) / 1000.0, gaps.quantile(0.99) / 1000.0,
+                        gaps.getMax() / 1000.0));
+            }
+        }
+
+        text.append(String.format("%nBursts (frames under %dms apart on a connection)%n%-3s %9s %18s %24s%n",
+                burstNanos / 1_000_000, "Dir", "Bursts", "frames p50/p99/max", "bytes p50/p99/max"));
+        for (int direction = 0; direction < 2; direction++) {
+            LatencySketch sizes = burstFrames[direction];
+            LatencySketch sizeBytes = burstBytes[direction];
+            if (sizes.getCount() > 0) {
+                text.append(String.format("%-3s %9d %18s %24s%n", DIRECTIONS[direction], sizes.getCount(),
+                        sizes.quantile(0.5) + "/" + sizes.quantile(0.99) + "/" + sizes.getMax(),
+                        sizeBytes.quantile(0.5) + "/" + sizeBytes.quantile(0.99) + "/" + sizeBytes.getMax()));
+            }
+        }
+
+        List<String> anomalies = findAnomalies();
+        text.append(String.format("%nAnomalous clients (%d)%n", anomalies.size()));
+        for (String anomaly : anomalies) {
+            text.append(anomaly).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * One line per connection whose inbound traffic is far above the
+     * median rate, goes silent for longer than the threshold, answers a
+     * question more than once, or sends frames that cannot be decoded.
+     */
+    private List<String> findAnomalies() {
+        double[] rates = connections.values().stream()
+                .filter(c -> c.frames[FrameCapture.INBOUND] > 1)
+                .mapToDouble(ConnectionStats::inboundRate)
+                .sorted()
+                .toArray();
+        double medianRate = rates.length > 0 ? rates[rates.length / 2] : 0;
+
+        List<String> anomalies = new ArrayList<>();
+        for (ConnectionStats stats : connections.values()) {
+            List<String> reasons = new ArrayList<>();
+            double rate = stats.inboundRate();
+            if (medianRate > 0 && rate > medianRate * floodFactor) {
+                reasons.add(String.format("%.1f frames/s in, median %.1f", rate, medianRate));
+            }
+            if (stats.longestInboundGap > silenceNanos) {
+                reasons.add(String.format("silent for %.1fs", stats.longestInboundGap / 1e9));
+            }
+            int repeated = 0;
+            for (int count : stats.answersByQuestion.values()) {
+                if (count > 1) {
+                    repeated++;
+                }
+            }
+            if (repeated > 0) {
+                reasons.add("answered " + repeated + " questions more than once");
+            }
+            if (stats.unknownFrames > 0) {
+                reasons.add(stats.unknownFrames + " frames of unknown type");
+            }
+            if (stats.malformedFrames > 0) {
+                reasons.add(stats.malformedFrames + " malformed frames");
+            }
+            if (!reasons.isEmpty()) {
+                anomalies.add(String.format("%-24s %s", stats.label(), String.join("; ", reasons)));
+            }
+        }
+        return anomalies;
+    }
+}
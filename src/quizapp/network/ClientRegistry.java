@@ -0,0 +1,106 @@
+package quizapp.network;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connected clients, keyed by player name.
+ *
+ * Readers iterate an immutable array snapshot that is replaced copy-on-write
+ * whenever a client joins or leaves, so a broadcast never holds a lock while
+ * it fans out and a join never waits for a broadcast to finish. Writers only
+ * serialize among themselves.
+ */
+public class ClientRegistry {
+
+    private static final GameServer.ClientHandler[] EMPTY = new GameServer.ClientHandler[0];
+
+    private final ConcurrentHashMap<String, GameServer.ClientHandler> byName = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile GameServer.ClientHandler[] snapshot = EMPTY;
+
+    /**
+     * Registers a client. Returns false if the name is already taken.
+     */
+    public boolean add(String playerName, GameServer.ClientHandler handler) {
+        synchronized (writeLock) {
+            if (byName.putIfAbsent(playerName, handler) != null) {
+                return false;
+            }
+            GameServer.ClientHandler[] current = snapshot;
+            GameServer.ClientHandler[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = handler;
+            snapshot = next;
+            return true;
+        }
+    }
+
+    /**
+     * Removes a client, but only if the name still belongs to the given
+     * handler; a stale handler must not evict a player who has rejoined.
+     */
+    public boolean remove(String playerName, GameServer.ClientHandler handler) {
+        synchronized (writeLock) {
+            if (!byName.remove(playerName, handler)) {
+                return false;
+            }
+            removeFromSnapshot(handler);
+            return true;
+        }
+    }
+
+    public GameServer.ClientHandler remove(String playerName) {
+        synchronized (writeLock) {
+            GameServer.ClientHandler handler = byName.remove(playerName);
+            if (handler != null) {
+                removeFromSnapshot(handler);
+            }
+            return handler;
+        }
+    }
+
+    private void removeFromSnapshot(GameServer.ClientHandler handler) {
+        GameServer.ClientHandler[] current = snapshot;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == handler) {
+                GameServer.ClientHandler[] next = new GameServer.ClientHandler[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                snapshot = next;
+                return;
+            }
+        }
+    }
+
+    public boolean contains(String playerName) {
+        return byName.containsKey(playerName);
+    }
+
+    public GameServer.ClientHandler get(String playerName) {
+        return byName.get(playerName);
+    }
+
+    /**
+     * Returns the clients connected at the moment of the call. The array is
+     * never modified and must not be modified by the caller.
+     */
+    public GameServer.ClientHandler[] snapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return snapshot.length;
+    }
+
+    /**
+     * Removes every client and returns the ones that were registered.
+     */
+    public GameServer.ClientHandler[] clear() {
+        synchronized (writeLock) {
+            GameServer.ClientHandler[] removed = snapshot;
+            byName.clear();
+            snapshot = EMPTY;
+            return removed;
+        }
+    }
+}
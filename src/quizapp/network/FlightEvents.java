@@ -0,0 +1,152 @@
+package quizapp.network;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events for the room lifecycle and the network hot paths,
+ * so a slow reveal can be lined up with GC, CPU and I/O in the same
+ * recording.
+ *
+ * Call sites use the usual pattern: create, begin, and fill in fields only
+ * if shouldCommit() says the event is recorded. With recording off, that
+ * reduces to a check the JIT folds away, and the event object is never
+ * allocated.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    @Name("quizapp.Handshake")
+    @Label("Client Handshake")
+    @Description("A new connection from accept to JOIN_SUCCESS or rejection")
+    @Category({"Quiz", "Network"})
+    @StackTrace(false)
+    public static final class Handshake extends Event {
+        @Label("Room")
+        public String room;
+        @Label("Player")
+        public String player;
+        @Label("Slot")
+        public int slot = -1;
+        @Label("Recovered")
+        @Description("Player rejoined with a score kept from before")
+        public boolean recovered;
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("quizapp.Reveal")
+    @Label("Question Reveal")
+    @Description("A question broadcast, from encoding to the last client's write")
+    @Category({"Quiz", "Network"})
+    @StackTrace(false)
+    public static final class Reveal extends Event {
+        @Label("Room")
+        public String room;
+        @Label("Question")
+        public int question;
+        @Label("Clients")
+        public int clients;
+        @Label("Failed Clients")
+        @Description("Clients whose write failed or who left before being written")
+        public int failed;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Queueing Time")
+        @Description("Time to queue the frame for every client")
+        @Timespan
+        public long queueNanos;
+        @Label("Skew")
+        @Description("Time between the first and last client write")
+        @Timespan
+        public long skewNanos;
+    }
+
+    // One per connection per write batch, so only slow writes are recorded
+    // unless a recording lowers the threshold
+    @Name("quizapp.ClientSend")
+    @Label("Client Send")
+    @Description("One gathering write of broadcast frames to a client")
+    @Category({"Quiz", "Network"})
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static final class ClientSend extends Event {
+        @Label("Room")
+        public String room;
+        @Label("Slot")
+        public int slot;
+        @Label("Frames")
+        public int frames;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Write Calls")
+        public int writeCalls;
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("quizapp.Answer")
+    @Label("Answer")
+    @Description("An answer checked and handed to scoring, or rejected")
+    @Category({"Quiz", "Game"})
+    @StackTrace(false)
+    public static final class Answer extends Event {
+        @Label("Room")
+        public String room;
+        @Label("Slot")
+        public int slot;
+        @Label("Question")
+        public int question;
+        @Label("Option")
+        public int option;
+        @Label("Rejection")
+        @Description("Why the answer was rejected, or null if it was accepted")
+        public String rejection;
+    }
+
+    @Name("quizapp.KeepAliveFailure")
+    @Label("Keep-Alive Failure")
+    @Description("A client dropped by the keep-alive check")
+    @Category({"Quiz", "Network"})
+    @StackTrace(false)
+    public static final class KeepAliveFailure extends Event {
+        @Label("Room")
+        public String room;
+        @Label("Slot")
+        public int slot;
+        @Label("Player")
+        public String player;
+        @Label("Idle Time")
+        @Timespan(Timespan.MILLISECONDS)
+        public long idleMillis;
+        @Label("Reason")
+        public String reason;
+    }
+
+    @Name("quizapp.ClientRemoved")
+    @Label("Client Removed")
+    @Description("A client closed and removed from the room")
+    @Category({"Quiz", "Network"})
+    @StackTrace(false)
+    public static final class ClientRemoved extends Event {
+        @Label("Room")
+        public String room;
+        @Label("Slot")
+        public int slot;
+        @Label("Player")
+        public String player;
+        @Label("Clients Left")
+        public int remaining;
+    }
+}
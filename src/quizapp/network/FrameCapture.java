@@ -0,0 +1,148 @@
+package quizapp.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records every frame a process sends or receives into a fixed-size capture
+ * file, for {@link CaptureAnalyzer} to read afterwards.
+ *
+ * The file is memory-mapped and used as a ring of blocks. Records never
+ * span blocks, and when the ring is full the oldest block is overwritten
+ * whole, so the file always holds the most recent traffic and stays
+ * readable. Recording is a short copy into the mapping under a lock, with
+ * no system call. Because the pages belong to the file, a capture also
+ * survives the process crashing.
+ *
+ * File layout, big-endian:
+ *
+ * <pre>
+ * header (64 bytes)  magic, version, block size, block count,
+ *                    wall-clock start in epoch microseconds
+ * block              sequence (long, 0 = never written), bytes used (int),
+ *                    then records
+ * record             frame length (int), captured length (int),
+ *                    direction (byte), connection (int),
+ *                    nanoseconds since start (long), captured bytes
+ * </pre>
+ *
+ * Frames larger than a block are truncated; the full frame length is still
+ * recorded.
+ */
+public class FrameCapture implements Closeable {
+
+    public static final byte INBOUND = 0;
+    public static final byte OUTBOUND = 1;
+    public static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+    static final int MAGIC = 0x51434150; // "QCAP"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_SIZE = 64;
+    static final int BLOCK_HEADER_SIZE = 12;
+    static final int RECORD_HEADER_SIZE = 4 + 4 + 1 + 4 + 8;
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    private final FileChannel file;
+    private final MappedByteBuffer map;
+    private final int blockCount;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger nextConnectionId = new AtomicInteger(1);
+    private long blockSequence;
+    private int blockOffset;
+    private int blockPosition;
+    private boolean closed;
+
+    private FrameCapture(FileChannel file, MappedByteBuffer map, int blockCount) {
+        this.file = file;
+        this.map = map;
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Creates or replaces a capture file of about the given size.
+     */
+    public static FrameCapture open(Path path, long capacityBytes) throws IOException {
+        int blockCount = (int) Math.max(2, Math.min(Integer.MAX_VALUE / BLOCK_SIZE - 1, capacityBytes / BLOCK_SIZE));
+        long size = FILE_HEADER_SIZE + (long) blockCount * BLOCK_SIZE;
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            MappedByteBuffer map = file.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putInt(8, BLOCK_SIZE);
+            map.putInt(12, blockCount);
+            map.putLong(16, System.currentTimeMillis() * 1000);
+            FrameCapture capture = new FrameCapture(file, map, blockCount);
+            capture.startBlock();
+            return capture;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Identifies a new connection in the records.
+     */
+    public int openConnection() {
+        return nextConnectionId.getAndIncrement();
+    }
+
+    /**
+     * Records one whole frame, header included, found at the given offset of
+     * the buffer. The buffer's position and limit are left alone.
+     */
+    public void record(byte direction, int connection, ByteBuffer frame, int offset, int length) {
+        int captured = Math.min(length, BLOCK_SIZE - BLOCK_HEADER_SIZE - RECORD_HEADER_SIZE);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            // Taken under the lock so records are in time order
+            long nanos = System.nanoTime() - startNanos;
+            if (blockPosition + RECORD_HEADER_SIZE + captured > BLOCK_SIZE) {
+                startBlock();
+            }
+            int at = blockOffset + blockPosition;
+            map.putInt(at, length);
+            map.putInt(at + 4, captured);
+            map.put(at + 8, direction);
+            map.putInt(at + 9, connection);
+            map.putLong(at + 13, nanos);
+            map.put(at + RECORD_HEADER_SIZE, frame, offset, captured);
+            blockPosition += RECORD_HEADER_SIZE + captured;
+            map.putInt(blockOffset + 8, blockPosition);
+        }
+    }
+
+    /**
+     * Moves to the next block in the ring, overwriting the oldest.
+     */
+    private void startBlock() {
+        blockSequence++;
+        blockOffset = FILE_HEADER_SIZE + (int) ((blockSequence - 1) % blockCount) * BLOCK_SIZE;
+        blockPosition = BLOCK_HEADER_SIZE;
+        // Marked unused until its header is complete, so a crash mid-way
+        // never leaves old records under a new sequence number
+        map.putLong(blockOffset, 0);
+        map.putInt(blockOffset + 8, blockPosition);
+        map.putLong(blockOffset, blockSequence);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        map.force();
+        file.close();
+    }
+}
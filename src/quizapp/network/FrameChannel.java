@@ -0,0 +1,269 @@
+package quizapp.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads and writes length-prefixed frames on a socket channel.
+ *
+ * Reads go into a pooled direct buffer owned by the connection, which only
+ * grows when a frame does not fit; any bytes of the next frame that arrive
+ * with the current one are kept for the next read. Writes are serialized so
+ * frames from different threads never interleave. Keep-alives, answers and
+ * timer ticks are written through a reusable per-connection buffer without
+ * creating a {@link Message}.
+ *
+ * A channel starts out blocking. The server switches its connections to
+ * non-blocking mode once the handshake is done, so a client that stops
+ * reading can never stall the thread writing to it: writes then only take
+ * what the socket buffer has room for, via {@link #writeAvailable}, and
+ * reads still wait for a whole frame, parked on the shared
+ * {@link ReadPoller}.
+ *
+ * With a {@link FrameCapture} attached, every whole frame read or written is
+ * also recorded there.
+ */
+public class FrameChannel {
+
+    private final SocketChannel channel;
+    private final BufferPool pool;
+    private final Object writeLock = new Object();
+    // Reused under writeLock for the small fixed-size frames
+    private final ByteBuffer controlBuffer = ByteBuffer.allocateDirect(32);
+    private PooledBuffer readBuffer;
+    private ByteBuffer frameView;
+    private int consumed;
+    // Registered by the reading thread the first time it has to wait
+    private volatile SelectionKey readKey;
+    // Set before the channel is used from more than one thread
+    private FrameCapture capture;
+    private int captureConnection;
+
+    public FrameChannel(SocketChannel channel, BufferPool pool) {
+        this.channel = channel;
+        this.pool = pool;
+        this.readBuffer = pool.acquire(4 * 1024);
+        this.frameView = readBuffer.buffer().duplicate();
+    }
+
+    /**
+     * Records every frame on this channel from now on.
+     */
+    public void setCapture(FrameCapture capture) {
+        this.captureConnection = capture.openConnection();
+        this.capture = capture;
+    }
+
+    /**
+     * Switches the channel to non-blocking mode. From then on only
+     * {@link #writeAvailable} may write to it.
+     */
+    public void setNonBlocking() throws IOException {
+        synchronized (writeLock) {
+            channel.configureBlocking(false);
+        }
+    }
+
+    /**
+     * Blocks until a whole frame has arrived and decodes it.
+     */
+    public Message read() throws IOException {
+        return MessageCodec.decode(nextFrame());
+    }
+
+    /**
+     * Blocks until a whole frame has arrived and returns its body, positioned
+     * at the type byte. The returned buffer is only valid until the next call.
+     */
+    public ByteBuffer nextFrame() throws IOException {
+        ByteBuffer buffer = readBuffer.buffer();
+        if (consumed > 0) {
+            // Drop the frame returned last time, keeping whatever followed it
+            buffer.flip();
+            buffer.position(consumed);
+            buffer.compact();
+            consumed = 0;
+        }
+
+        while (true) {
+            int available = buffer.position();
+            if (available >= MessageCodec.HEADER_SIZE) {
+                int length = buffer.getInt(0);
+                if (length <= 0 || length > MessageCodec.MAX_FRAME_SIZE) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                int frameSize = MessageCodec.HEADER_SIZE + length;
+                if (available >= frameSize) {
+                    consumed = frameSize;
+                    if (capture != null) {
+                        capture.record(FrameCapture.INBOUND, captureConnection, buffer, 0, frameSize);
+                    }
+                    frameView.clear();
+                    frameView.limit(frameSize);
+                    frameView.position(MessageCodec.HEADER_SIZE);
+                    return frameView;
+                }
+                if (frameSize > buffer.capacity()) {
+                    buffer = grow(frameSize);
+                }
+            }
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("Connection closed");
+            }
+            if (read == 0 && !channel.isBlocking()) {
+                awaitReadable();
+            }
+        }
+    }
+
+    private void awaitReadable() throws IOException {
+        SelectionKey key = readKey;
+        if (key == null) {
+            key = ReadPoller.SHARED.register(channel, Thread.currentThread());
+            readKey = key;
+            if (!channel.isOpen()) {
+                // Closed before close() could see the key to wake us
+                throw new EOFException("Connection closed");
+            }
+        }
+        ReadPoller.SHARED.await(key);
+    }
+
+    private ByteBuffer grow(int capacity) {
+        PooledBuffer larger = pool.acquire(capacity);
+        ByteBuffer buffer = readBuffer.buffer();
+        buffer.flip();
+        larger.buffer().put(buffer);
+        readBuffer.release();
+        readBuffer = larger;
+        frameView = larger.buffer().duplicate();
+        return larger.buffer();
+    }
+
+    public void write(Message message) throws IOException {
+        PooledBuffer frame = MessageCodec.encode(message, pool);
+        try {
+            write(frame.buffer());
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Writes a whole encoded frame. The buffer is rewound first, so a
+     * per-thread view of a shared frame can be written to many channels.
+     */
+    public void write(ByteBuffer frame) throws IOException {
+        synchronized (writeLock) {
+            checkBlocking();
+            frame.position(0);
+            if (capture != null) {
+                capture.record(FrameCapture.OUTBOUND, captureConnection, frame, 0, frame.limit());
+            }
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        }
+    }
+
+    public void writeKeepAlive(long echoTimestamp) throws IOException {
+        synchronized (writeLock) {
+            controlBuffer.clear();
+            FrameViews.KeepAliveView.encode(controlBuffer, echoTimestamp);
+            writeControlBuffer();
+        }
+    }
+
+    public void writeAnswer(int questionNumber, int answerIndex, int clientMicros) throws IOException {
+        synchronized (writeLock) {
+            controlBuffer.clear();
+            FrameViews.AnswerView.encode(controlBuffer, questionNumber, answerIndex, clientMicros);
+            writeControlBuffer();
+        }
+    }
+
+    public void writeRenderAck(long traceId, int decodeMicros, int edtMicros, int renderMicros) throws IOException {
+        synchronized (writeLock) {
+            controlBuffer.clear();
+            FrameViews.RenderAckView.encode(controlBuffer, traceId, decodeMicros, edtMicros, renderMicros);
+            writeControlBuffer();
+        }
+    }
+
+    private void writeControlBuffer() throws IOException {
+        checkBlocking();
+        controlBuffer.flip();
+        if (capture != null) {
+            capture.record(FrameCapture.OUTBOUND, captureConnection, controlBuffer, 0, controlBuffer.limit());
+        }
+        while (controlBuffer.hasRemaining()) {
+            channel.write(controlBuffer);
+        }
+    }
+
+    /**
+     * Blocking writes would spin on a non-blocking channel.
+     */
+    private void checkBlocking() {
+        if (!channel.isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+    }
+
+    /**
+     * Writes as much of several encoded frames as the socket buffer has room
+     * for, in one gathering write that never blocks, and returns the number
+     * of bytes written. Frames are views starting at offset 0, the first of
+     * them possibly partly written already; each is recorded in the capture
+     * once its last byte has gone out.
+     */
+    public long writeAvailable(ByteBuffer[] frames, int offset, int count) throws IOException {
+        synchronized (writeLock) {
+            long written = channel.write(frames, offset, count);
+            if (capture != null) {
+                for (int i = offset; i < offset + count && !frames[i].hasRemaining(); i++) {
+                    capture.record(FrameCapture.OUTBOUND, captureConnection, frames[i], 0, frames[i].limit());
+                }
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Holding this lock keeps other threads from writing to the channel, e.g.
+     * while a handshake reply is being sent.
+     */
+    public Object getWriteLock() {
+        return writeLock;
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes the channel and wakes its reader if it is waiting. The read
+     * buffer is returned to the pool by the reading thread once it has
+     * stopped, via {@link #releaseReadBuffer()}.
+     */
+    public void close() throws IOException {
+        channel.close();
+        SelectionKey key = readKey;
+        if (key != null) {
+            LockSupport.unpark((Thread) key.attachment());
+        }
+    }
+
+    public void releaseReadBuffer() {
+        if (readBuffer != null) {
+            readBuffer.release();
+            readBuffer = null;
+        }
+    }
+}
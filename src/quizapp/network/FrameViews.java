@@ -0,0 +1,160 @@
+package quizapp.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight views over the frames sent most often: TIMER, KEEP_ALIVE and
+ * ANSWER. They read and write fields in place at fixed offsets, so the hot
+ * send and receive paths never build a {@link Message}. A view is reused by
+ * re-wrapping it around each new frame and is not thread-safe.
+ *
+ * The layouts match what {@link MessageCodec} produces for the same types.
+ */
+public final class FrameViews {
+
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private FrameViews() {
+    }
+
+    /**
+     * Type of a frame body positioned at its type byte, or null if unknown.
+     */
+    public static MessageType typeOf(ByteBuffer frame) {
+        int typeIndex = frame.get(frame.position()) & 0xFF;
+        return typeIndex < TYPES.length ? TYPES[typeIndex] : null;
+    }
+
+    private static void putHeader(ByteBuffer buffer, MessageType type, int bodySize) {
+        buffer.putInt(bodySize);
+        buffer.put((byte) type.ordinal());
+    }
+
+    public static final class KeepAliveView {
+        public static final int FRAME_SIZE = MessageCodec.HEADER_SIZE + 1 + 8;
+
+        private ByteBuffer frame;
+        private int offset;
+
+        public KeepAliveView wrap(ByteBuffer frame) {
+            this.frame = frame;
+            this.offset = frame.position();
+            return this;
+        }
+
+        public long getEchoTimestamp() {
+            return frame.getLong(offset + 1);
+        }
+
+        /**
+         * Appends a whole KEEP_ALIVE frame at the buffer's position.
+         */
+        public static void encode(ByteBuffer buffer, long echoTimestamp) {
+            putHeader(buffer, MessageType.KEEP_ALIVE, 1 + 8);
+            buffer.putLong(echoTimestamp);
+        }
+    }
+
+    public static final class AnswerView {
+        public static final int FRAME_SIZE = MessageCodec.HEADER_SIZE + 1 + 4 + 4 + 4;
+
+        private ByteBuffer frame;
+        private int offset;
+
+        public AnswerView wrap(ByteBuffer frame) {
+            this.frame = frame;
+            this.offset = frame.position();
+            return this;
+        }
+
+        /**
+         * Number of the question being answered, as sent in QUESTION.
+         */
+        public int getQuestionNumber() {
+            return frame.getInt(offset + 1);
+        }
+
+        public int getAnswerIndex() {
+            return frame.getInt(offset + 5);
+        }
+
+        /**
+         * Time on the client from the click to the answer being sent.
+         */
+        public int getClientMicros() {
+            return frame.getInt(offset + 9);
+        }
+
+        public static void encode(ByteBuffer buffer, int questionNumber, int answerIndex, int clientMicros) {
+            putHeader(buffer, MessageType.ANSWER, 1 + 4 + 4 + 4);
+            buffer.putInt(questionNumber);
+            buffer.putInt(answerIndex);
+            buffer.putInt(clientMicros);
+        }
+    }
+
+    /**
+     * Sent by a client once a question is on screen: the trace ID of the
+     * QUESTION frame, and how long the client spent decoding it, waiting for
+     * the event dispatch thread and drawing it, all on the client's own
+     * clock.
+     */
+    public static final class RenderAckView {
+        public static final int FRAME_SIZE = MessageCodec.HEADER_SIZE + 1 + 8 + 4 + 4 + 4;
+
+        private ByteBuffer frame;
+        private int offset;
+
+        public RenderAckView wrap(ByteBuffer frame) {
+            this.frame = frame;
+            this.offset = frame.position();
+            return this;
+        }
+
+        public long getTraceId() {
+            return frame.getLong(offset + 1);
+        }
+
+        public int getDecodeMicros() {
+            return frame.getInt(offset + 9);
+        }
+
+        public int getEdtMicros() {
+            return frame.getInt(offset + 13);
+        }
+
+        public int getRenderMicros() {
+            return frame.getInt(offset + 17);
+        }
+
+        public static void encode(ByteBuffer buffer, long traceId, int decodeMicros, int edtMicros, int renderMicros) {
+            putHeader(buffer, MessageType.RENDER_ACK, 1 + 8 + 4 + 4 + 4);
+            buffer.putLong(traceId);
+            buffer.putInt(decodeMicros);
+            buffer.putInt(edtMicros);
+            buffer.putInt(renderMicros);
+        }
+    }
+
+    public static final class TimerView {
+        public static final int FRAME_SIZE = MessageCodec.HEADER_SIZE + 1 + 4;
+
+        private ByteBuffer frame;
+        private int offset;
+
+        public TimerView wrap(ByteBuffer frame) {
+            this.frame = frame;
+            this.offset = frame.position();
+            return this;
+        }
+
+        public int getTimeRemaining() {
+            return frame.getInt(offset + 1);
+        }
+
+        public static void encode(ByteBuffer buffer, int timeRemaining) {
+            putHeader(buffer, MessageType.TIMER, 1 + 4);
+            buffer.putInt(timeRemaining);
+        }
+    }
+}
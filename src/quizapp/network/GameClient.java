@@ -1,13 +1,15 @@
 package quizapp.network;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.List;
 import java.util.function.Consumer;
 import quizapp.model.Player;
 import quizapp.model.Question;
+import quizapp.util.Log;
 
 public class    GameClient {
 
@@ -16,26 +18,48 @@ public class    GameClient {
     private static final int RECONNECT_DELAY = 2000;
     private static final long KEEP_ALIVE_TIMEOUT = 15000;
     private static final long KEEP_ALIVE_INTERVAL = 3000;
+    private static final Log LOG = Log.get(GameClient.class);
 
-    private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private SocketChannel channel;
+    private FrameChannel connection;
     private final String playerName;
     private final String roomCode;
     private boolean connected;
     private ClientListener listener;
     private KeepAliveSender keepAliveSender;
     private long lastKeepAliveReceived;
+    private volatile int currentQuestionNumber;
+    private volatile QuestionTrace questionTrace;
+    private FrameCapture capture;
 
     @FunctionalInterface
     public interface QuestionCallback {
         void accept(Question question, int questionNumber, int totalQuestions);
     }
 
+    /**
+     * When the current question arrived and was decoded, so its render can
+     * be reported to the host against the trace ID it came with.
+     */
+    private static final class QuestionTrace {
+        final int questionNumber;
+        final long traceId;
+        final long receivedNanos;
+        final long decodedNanos;
+
+        QuestionTrace(int questionNumber, long traceId, long receivedNanos, long decodedNanos) {
+            this.questionNumber = questionNumber;
+            this.traceId = traceId;
+            this.receivedNanos = receivedNanos;
+            this.decodedNanos = decodedNanos;
+        }
+    }
+
     private QuestionCallback questionCallback;
     private Consumer<Integer> timerCallback;
-    private Runnable timeUpCallback;
+    private Consumer<int[]> timeUpCallback;
     private Consumer<List<Player>> resultsCallback;
+    private Consumer<List<Player>> scoreUpdateCallback;
     private Runnable disconnectCallback;
 
     public GameClient(String playerName, String roomCode, String hostIP) {
@@ -44,23 +68,39 @@ public class    GameClient {
         this.lastKeepAliveReceived = System.currentTimeMillis();
     }
 
+    /**
+     * Connects to the host, given as an address or as address:port for a
+     * room that is not on the default port.
+     */
     public boolean connect(String hostIP) throws IOException, InterruptedException {
+        int port = PORT;
+        int colon = hostIP.lastIndexOf(':');
+        if (colon > 0 && hostIP.indexOf(':') == colon) {
+            try {
+                port = Integer.parseInt(hostIP.substring(colon + 1).trim());
+                hostIP = hostIP.substring(0, colon);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid port in " + hostIP);
+            }
+        }
         for (int attempt = 0; attempt < RECONNECT_ATTEMPTS; attempt++) {
+            channel = null;
+            connection = null;
             try {
-                socket = new Socket(hostIP, PORT);
-                socket.setKeepAlive(true);
-                socket.setTcpNoDelay(true);
-                socket.setSoTimeout(15000); // 15 second read timeout
-                out = new ObjectOutputStream(socket.getOutputStream());
-                in = new ObjectInputStream(socket.getInputStream());
+                channel = SocketChannel.open(new InetSocketAddress(hostIP, port));
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connection = new FrameChannel(channel, BufferPool.SHARED);
+                if (capture != null) {
+                    connection.setCapture(capture);
+                }
 
                 Message joinMessage = new Message(MessageType.JOIN);
                 joinMessage.setPlayerName(playerName);
                 joinMessage.setRoomCode(roomCode);
-                out.writeObject(joinMessage);
-                out.flush();
+                connection.write(joinMessage);
 
-                Message response = (Message) in.readObject();
+                Message response = connection.read();
 
                 if (response.getType() == MessageType.JOIN_SUCCESS) {
                     connected = true;
@@ -73,14 +113,18 @@ public class    GameClient {
 
                     return true;
                 } else {
-                    socket.close();
+                    connection.close();
+                    connection.releaseReadBuffer();
                     if (attempt < RECONNECT_ATTEMPTS - 1) {
                         Thread.sleep(RECONNECT_DELAY);
                     }
                 }
             } catch (Exception e) {
-                if (socket != null) {
-                    socket.close();
+                if (connection != null) {
+                    connection.close();
+                    connection.releaseReadBuffer();
+                } else if (channel != null) {
+                    channel.close();
                 }
                 if (attempt < RECONNECT_ATTEMPTS - 1) {
                     Thread.sleep(RECONNECT_DELAY);
@@ -98,13 +142,21 @@ public class    GameClient {
             while (running && connected) {
                 try {
                     Thread.sleep(KEEP_ALIVE_INTERVAL);
+                    // Channel reads have no timeout, so a silent server is
+                    // detected here rather than by the listener
+                    long silentMillis = System.currentTimeMillis() - lastKeepAliveReceived;
+                    if (silentMillis > KEEP_ALIVE_TIMEOUT) {
+                        LOG.warn("Connection timed out", "player", playerName, "silentMillis", silentMillis);
+                        handleDisconnect();
+                        break;
+                    }
                     if (connected) {
                         sendKeepAlive();
                     }
                 } catch (InterruptedException e) {
                     break;
                 } catch (IOException e) {
-                    System.out.println("Error sending keep-alive: " + e.getMessage());
+                    LOG.warn("Error sending keep-alive", "player", playerName, "reason", e.getMessage());
                     handleDisconnect();
                     break;
                 }
@@ -117,13 +169,13 @@ public class    GameClient {
     }
 
     private void sendKeepAlive() throws IOException {
+        sendKeepAlive(0);
+    }
+
+    private void sendKeepAlive(long echoTimestamp) throws IOException {
         if (!connected) return;
         
-        Message keepAlive = new Message(MessageType.KEEP_ALIVE);
-        synchronized (out) {
-            out.writeObject(keepAlive);
-            out.flush();
-        }
+        connection.writeKeepAlive(echoTimestamp);
     }
 
     private class ClientListener implements Runnable {
@@ -131,67 +183,89 @@ public class    GameClient {
 
         @Override
         public void run() {
+            FrameViews.TimerView timerView = new FrameViews.TimerView();
+            FrameViews.KeepAliveView keepAliveView = new FrameViews.KeepAliveView();
             try {
-                while (running && socket != null && !socket.isClosed()) {
-                    try {
-                        Message message = (Message) in.readObject();
-                        lastKeepAliveReceived = System.currentTimeMillis();
-
-                        System.out.println(message.getType());
-                        switch (message.getType()) {
-                            case QUESTION:
-                                if (questionCallback != null) {
-                                    questionCallback.accept(
-                                            message.getQuestion(),
-                                            message.getQuestionNumber(),
-                                            message.getTotalQuestions()
-                                    );
-                                }
-                                break;
-
-                            case TIMER:
-                                if (timerCallback != null) {
-                                    timerCallback.accept(message.getTimeRemaining());
-                                }
-                                break;
-
-                            case TIME_UP:
-                                if (timeUpCallback != null) {
-                                    timeUpCallback.run();
-                                }
-                                break;
-
-                            case RESULTS:
-                                if (resultsCallback != null) {
-                                    resultsCallback.accept(message.getPlayerResults());
-                                }
-                                break;
-
-                            case DISCONNECT:
-                                handleDisconnect();
-                                break;
-
-                            case KEEP_ALIVE:
-                                // Just update the last keep-alive timestamp
-                                lastKeepAliveReceived = System.currentTimeMillis();
-                                break;
-                        }
-                    } catch (IOException e) {
-                        if (System.currentTimeMillis() - lastKeepAliveReceived > KEEP_ALIVE_TIMEOUT) {
-                            System.out.println("Connection timeout - last keep-alive: " + 
-                                (System.currentTimeMillis() - lastKeepAliveReceived) + "ms ago");
+                while (running && connection.isOpen()) {
+                    ByteBuffer frame = connection.nextFrame();
+                    long receivedNanos = System.nanoTime();
+                    lastKeepAliveReceived = System.currentTimeMillis();
+
+                    MessageType type = FrameViews.typeOf(frame);
+                    // Guarded so the field array is not built per frame
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Frame received", "player", playerName, "type", type);
+                    }
+                    if (type == null) {
+                        continue;
+                    }
+                    // Timer ticks and keep-alives are read in place; only
+                    // the rarer frames are decoded into a Message
+                    Message message;
+                    switch (type) {
+                        case QUESTION:
+                            message = MessageCodec.decode(frame);
+                            currentQuestionNumber = message.getQuestionNumber();
+                            questionTrace = new QuestionTrace(message.getQuestionNumber(), message.getTraceId(),
+                                    receivedNanos, System.nanoTime());
+                            if (questionCallback != null) {
+                                questionCallback.accept(
+                                        message.getQuestion(),
+                                        message.getQuestionNumber(),
+                                        message.getTotalQuestions()
+                                );
+                            }
+                            break;
+
+                        case TIMER:
+                            if (timerCallback != null) {
+                                timerCallback.accept(timerView.wrap(frame).getTimeRemaining());
+                            }
+                            break;
+
+                        case TIME_UP:
+                            message = MessageCodec.decode(frame);
+                            if (timeUpCallback != null) {
+                                timeUpCallback.accept(message.getAnswerCounts());
+                            }
+                            break;
+
+                        case SCORE_UPDATE:
+                            message = MessageCodec.decode(frame);
+                            if (scoreUpdateCallback != null) {
+                                scoreUpdateCallback.accept(message.getPlayerResults());
+                            }
+                            break;
+
+                        case RESULTS:
+                            message = MessageCodec.decode(frame);
+                            if (resultsCallback != null) {
+                                resultsCallback.accept(message.getPlayerResults());
+                            }
+                            break;
+
+                        case DISCONNECT:
                             handleDisconnect();
                             break;
-                        }
-                    } catch (ClassNotFoundException e) {
-                        System.out.println("Error reading message: " + e.getMessage());
-                        handleDisconnect();
-                        break;
+
+                        case KEEP_ALIVE:
+                            lastKeepAliveReceived = System.currentTimeMillis();
+                            // Echo the server's timestamp straight back so it can measure our round trip
+                            long echoTimestamp = keepAliveView.wrap(frame).getEchoTimestamp();
+                            if (echoTimestamp != 0) {
+                                sendKeepAlive(echoTimestamp);
+                            }
+                            break;
+
+                        default:
+                            break;
                     }
                 }
             } catch (Exception e) {
-                System.out.println("Client listener error: " + e.getMessage());
+                LOG.warn("Client listener error", "player", playerName, "reason", e.getMessage());
                 handleDisconnect();
+            } finally {
+                connection.releaseReadBuffer();
             }
         }
 
@@ -220,34 +294,73 @@ public class    GameClient {
         }
 
         try {
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
+            if (connection != null) {
+                connection.close();
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.warn("Error closing connection", "player", playerName, e);
         }
     }
 
     public void sendAnswer(int answerIndex) {
+        sendAnswer(answerIndex, System.nanoTime());
+    }
+
+    /**
+     * Sends an answer, telling the host how long it took from the click
+     * (on System.nanoTime()) to get it onto the wire.
+     */
+    public void sendAnswer(int answerIndex, long clickedNanos) {
         if (!connected) return;
 
         try {
-            Message message = new Message(MessageType.ANSWER);
-            message.setAnswerIndex(answerIndex);
-            synchronized (out) {
-                out.writeObject(message);
-                out.flush();
-            }
+            long clientMicros = (System.nanoTime() - clickedNanos) / 1000;
+            connection.writeAnswer(currentQuestionNumber, answerIndex, (int) Math.min(Integer.MAX_VALUE, clientMicros));
+        } catch (IOException e) {
+            LOG.warn("Error sending answer", "player", playerName, "reason", e.getMessage());
+            handleDisconnect();
+        }
+    }
+
+    /**
+     * Reports that a question is on screen, so the host can see how long
+     * decoding, waiting for the event dispatch thread and drawing took.
+     * startedNanos is when the UI started handling the question, on
+     * System.nanoTime(). Reports for a question that has been replaced are
+     * ignored.
+     */
+    public void questionRendered(int questionNumber, long startedNanos) {
+        QuestionTrace trace = questionTrace;
+        if (!connected || trace == null || trace.questionNumber != questionNumber) {
+            return;
+        }
+        questionTrace = null;
+        long now = System.nanoTime();
+        try {
+            connection.writeRenderAck(trace.traceId, micros(trace.decodedNanos - trace.receivedNanos),
+                    micros(startedNanos - trace.decodedNanos), micros(now - startedNanos));
         } catch (IOException e) {
-            System.out.println("Error sending answer: " + e.getMessage());
+            LOG.warn("Error sending render ack", "player", playerName, "reason", e.getMessage());
             handleDisconnect();
         }
     }
 
+    private static int micros(long nanos) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, nanos / 1000));
+    }
+
     public String getPlayerName() {
         return playerName;
     }
 
+    /**
+     * Records this client's traffic into the given capture from the next
+     * connect on. The caller closes it after disconnecting.
+     */
+    public void setCapture(FrameCapture capture) {
+        this.capture = capture;
+    }
+
     public void setQuestionCallback(QuestionCallback callback) {
         this.questionCallback = callback;
     }
@@ -256,7 +369,7 @@ public class    GameClient {
         this.timerCallback = callback;
     }
 
-    public void setTimeUpCallback(Runnable callback) {
+    public void setTimeUpCallback(Consumer<int[]> callback) {
         this.timeUpCallback = callback;
     }
 
@@ -264,6 +377,10 @@ public class    GameClient {
         this.resultsCallback = callback;
     }
 
+    public void setScoreUpdateCallback(Consumer<List<Player>> callback) {
+        this.scoreUpdateCallback = callback;
+    }
+
     public void setDisconnectCallback(Runnable callback) {
         this.disconnectCallback = callback;
     }
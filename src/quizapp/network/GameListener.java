@@ -0,0 +1,31 @@
+package quizapp.network;
+
+import java.util.List;
+import quizapp.model.Player;
+import quizapp.model.Question;
+
+/**
+ * Observes the progress of a quiz run by {@link GameLoop}. Called on the
+ * game loop thread, so a UI should hand each event over to its own thread
+ * and return straight away.
+ */
+public interface GameListener {
+
+    default void questionStarted(Question question, int questionIndex, int questionCount) {
+    }
+
+    default void timerTick(int secondsRemaining) {
+    }
+
+    default void questionClosed(Question question, int questionIndex) {
+    }
+
+    default void quizFinished(List<Player> results) {
+    }
+
+    /**
+     * Players joined or left, or the standings changed.
+     */
+    default void playersChanged(List<Player> players) {
+    }
+}
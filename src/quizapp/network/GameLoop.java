@@ -0,0 +1,235 @@
+package quizapp.network;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.util.Log;
+import quizapp.util.TimingWheel;
+
+/**
+ * Runs a quiz on the server: reveals each question, counts it down, closes
+ * it when its time is up and moves on to the next after a short pause,
+ * finishing with the results.
+ *
+ * Steps are timed on a shared {@link TimingWheel}, so a room costs no
+ * thread of its own. The wheel only hands each step to an executor, since a
+ * step broadcasts to every client and writes the recovery log, and runs
+ * one at a time under the loop's lock there. Steps are
+ * timed against the monotonic clock: ticks and the deadline are fixed
+ * offsets from the moment the question was revealed, rather than a counter
+ * decremented once per tick, so a late tick never pushes the ones after it
+ * back. A tick that is more than a second late is skipped instead of
+ * replayed.
+ *
+ * Each timed step carries the generation it was scheduled in, and every
+ * reschedule or cancel starts a new one. A step the wheel had already handed
+ * to the executor when the host advanced or ended the quiz then finds itself
+ * stale and does nothing, rather than closing a question twice or
+ * replacing the step that superseded it.
+ */
+public class GameLoop {
+
+    public enum Phase {
+        LOBBY, QUESTION, REVIEW, FINISHED
+    }
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+    private static final long TRANSITION_NANOS = 3 * SECOND_NANOS;
+    private static final Log LOG = Log.get(GameLoop.class);
+
+    private final GameServer server;
+    private final Quiz quiz;
+    private final TimingWheel timers;
+    private final Executor executor;
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Phase phase = Phase.LOBBY;
+
+    // Guarded by this
+    private TimingWheel.Timeout pending;
+    private long generation;
+    private Question question;
+    private long revealNanos;
+    private long deadlineNanos;
+    private boolean started;
+    private boolean finished;
+
+    public GameLoop(GameServer server, Quiz quiz, TimingWheel timers, Executor executor) {
+        this.server = server;
+        this.quiz = quiz;
+        this.timers = timers;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the quiz, or resumes it after the last question that was
+     * asked. Does nothing once started.
+     */
+    public void start() {
+        run(() -> {
+            if (started) {
+                return;
+            }
+            started = true;
+            revealNext();
+        });
+    }
+
+    /**
+     * Moves the quiz on one step without waiting: closes the open question,
+     * or reveals the next one while the last answer is being shown.
+     */
+    public void advance() {
+        run(() -> {
+            if (!started) {
+                started = true;
+                revealNext();
+            } else if (phase == Phase.QUESTION) {
+                cancelPending();
+                deadlineNanos = System.nanoTime();
+                closeQuestion();
+            } else if (phase == Phase.REVIEW) {
+                cancelPending();
+                revealNext();
+            }
+        });
+    }
+
+    /**
+     * Ends the quiz now, skipping any questions left, and sends the results.
+     */
+    public void end() {
+        run(this::finish);
+    }
+
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    void playersChanged(List<Player> players) {
+        for (GameListener listener : listeners) {
+            listener.playersChanged(players);
+        }
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Stops the loop without sending results, e.g. when the server stops.
+     */
+    public synchronized void shutdown() {
+        finished = true;
+        phase = Phase.FINISHED;
+        cancelPending();
+    }
+
+    private void revealNext() {
+        int index = quiz.currentQuestionIndex + 1;
+        if (index >= quiz.getQuestionCount()) {
+            finish();
+            return;
+        }
+        quiz.currentQuestionIndex = index;
+        question = quiz.getQuestionAt(index);
+        revealNanos = System.nanoTime();
+        deadlineNanos = revealNanos + question.getTimeLimit() * SECOND_NANOS;
+        phase = Phase.QUESTION;
+
+        server.broadcastQuestion(question, index);
+        for (GameListener listener : listeners) {
+            listener.questionStarted(question, index, quiz.getQuestionCount());
+        }
+        tick();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        if (now >= deadlineNanos) {
+            closeQuestion();
+            return;
+        }
+        long elapsedSeconds = (now - revealNanos) / SECOND_NANOS;
+        int remaining = (int) ((deadlineNanos - revealNanos) / SECOND_NANOS - elapsedSeconds);
+        server.broadcastTimer(remaining);
+        for (GameListener listener : listeners) {
+            listener.timerTick(remaining);
+        }
+        long nextTick = revealNanos + (elapsedSeconds + 1) * SECOND_NANOS;
+        scheduleAt(Math.min(nextTick, deadlineNanos), this::tick);
+    }
+
+    private void closeQuestion() {
+        phase = Phase.REVIEW;
+        server.broadcastTimeUp();
+        for (GameListener listener : listeners) {
+            listener.questionClosed(question, quiz.currentQuestionIndex);
+        }
+        scheduleAt(deadlineNanos + TRANSITION_NANOS, this::revealNext);
+    }
+
+    private void finish() {
+        finished = true;
+        phase = Phase.FINISHED;
+        cancelPending();
+        // Ending mid-question closes it first, so nothing is scored after
+        // the results and answers still queued make it into them
+        List<Player> results = server.closeScoring();
+        server.broadcastResults(results);
+        server.markQuizCompleted();
+        for (GameListener listener : listeners) {
+            listener.quizFinished(results);
+        }
+    }
+
+    private void cancelPending() {
+        // The step may already be on its way to the executor, where this
+        // makes it stale
+        generation++;
+        if (pending != null) {
+            pending.cancel();
+            pending = null;
+        }
+    }
+
+    private void scheduleAt(long targetNanos, Runnable step) {
+        long scheduledGeneration = ++generation;
+        Runnable guardedStep = guarded(() -> {
+            if (generation == scheduledGeneration) {
+                pending = null;
+                step.run();
+            }
+        });
+        pending = timers.scheduleAt(targetNanos, () -> executor.execute(guardedStep));
+    }
+
+    /**
+     * Runs a step off the caller's thread, so starting or ending the quiz
+     * from the UI does not broadcast on the EDT.
+     */
+    private void run(Runnable step) {
+        executor.execute(guarded(step));
+    }
+
+    private Runnable guarded(Runnable step) {
+        return () -> {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                try {
+                    step.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Error in game loop", e);
+                }
+            }
+        };
+    }
+}
@@ -1,57 +1,131 @@
 package quizapp.network;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
-import javax.swing.SwingUtilities;
 import quizapp.model.Player;
 import quizapp.model.Question;
 import quizapp.model.Quiz;
+import quizapp.util.LatencySketch;
+import quizapp.util.Log;
+import quizapp.util.MetricsRegistry;
+import quizapp.util.TimingWheel;
 import  quizapp.util.Logger;
 
-public class GameServer {
+public final class GameServer {
 
-    private static final int PORT = 8888;
+    public static final int DEFAULT_PORT = 8888;
     private static final long KEEP_ALIVE_INTERVAL = 3000; // 3 seconds
     private static final long CLIENT_TIMEOUT = 15000; // 15 seconds
+    private static final long SNAPSHOT_INTERVAL = 5000; // 5 seconds
+    private static final long TALLY_UPDATE_INTERVAL = 250; // live tallies at most 4 times a second
+    private static final long LOG_FLUSH_INTERVAL = 200; // bounds what a crash can lose from the logs
+    private static final int MAX_POINTS = 100;
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final long WRITE_TICK = 5; // ms that broadcast writers gather frames
+    private static final long WRITE_STALL_TIMEOUT = 5000; // ms a client may leave broadcasts unread
+    private static final long MAX_RTT_COMPENSATION = 300; // ms of round trip taken off a response time, at most
+    private static final int SEND_BUFFER_SIZE = 16 * 1024; // keeps backlog in our queues, where it can be conflated
+    private static final long HANDSHAKE_TIMEOUT = 10000; // 10 seconds to send JOIN
+    private static final long SHUTDOWN_TIMEOUT = 5000; // ms to wait for queued answers to be scored on stop
+    private static final Log LOG = Log.get(GameServer.class);
+    private static final AtomicInteger roomWorkerIndex = new AtomicInteger();
+    // Game loop steps, snapshots and log flushes block on locks and disk, so
+    // the timing wheel hands them to these threads instead of running them
+    private static final ExecutorService roomWorkers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "room-worker-" + roomWorkerIndex.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private ServerSocket serverSocket;
+    private ServerSocketChannel serverChannel;
+    private int port;
     private final Quiz quiz;
     public Logger logger;
     private final String roomCode;
-    private final Map<String, ClientHandler> clients;
+    private final ClientRegistry clients;
     private final List<Player> players;
+    private final Map<String, Player> detachedPlayers;
+    private final RoomStateStore stateStore;
+    private final ScoringShards scoring;
+    private final BroadcastFanout fanout;
+    private final GameLoop gameLoop;
+    private final AtomicInteger nextPlayerSlot = new AtomicInteger();
     private boolean isRunning;
     private Consumer<List<Player>> playerUpdateCallback;
-    private Timer keepAliveTimer;
-    private Timer questionTimer;
-    private int timeRemaining;
+    private Consumer<int[]> answerTallyCallback;
+    private volatile AnswerTally answerTally = new AnswerTally(0);
+    private volatile long publishedTallyTotal;
+    private Consumer<LatencySketch> responseTimeCallback;
+    private Consumer<LatencySketch> rttCallback;
+    private final LatencySketch[] responseTimeSketches;
+    private volatile LatencySketch currentResponseTimes = new LatencySketch();
+    private volatile long questionRevealNanos;
+    // Number (as sent to clients) of the question accepting answers, 0 when none is
+    private volatile int openQuestionNumber;
+    private volatile AnsweredSet answeredSlots = new AnsweredSet(0);
+    private final TimingWheel timers = TimingWheel.SHARED;
+    private TimingWheel.Timeout keepAliveCheck;
+    private TimingWheel.Timeout snapshotTask;
+    private TimingWheel.Timeout logFlushTask;
+    private TimingWheel.Timeout tallyTask;
+    private volatile boolean stateDirty;
+    private volatile boolean resultsSent;
+    private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private volatile InboundLimits inboundLimits = InboundLimits.defaults();
+    private volatile FrameCapture capture;
+    private final MetricsRegistry metrics = MetricsRegistry.SHARED;
+    private final LongAdder joins = new LongAdder();
+    private final LongAdder acceptedAnswers = new LongAdder();
+    private final LongAdder rejectedAnswers = new LongAdder();
+    private final LongAdder keepAliveFailures = new LongAdder();
+    private final LongAdder[] bytesReceived = BroadcastFanout.newCounters();
+    private final HopLatencies hops = new HopLatencies();
 
     public class ClientHandler implements Runnable {
-        private final Socket socket;
-        private final ObjectOutputStream out;
-        private final ObjectInputStream in;
+        private final FrameChannel connection;
+        private final OutboundQueue outbound = new OutboundQueue();
+        private final LinkEstimator link = new LinkEstimator();
+        private final InboundLimits limits = inboundLimits;
+        private final TokenBucket[] buckets = limits.newBuckets();
+        private int rateLimitedFrames;
         private final Player player;
         private final GameServer server;
         private volatile boolean running = true;
         private volatile long lastKeepAliveResponse;
+        private volatile long smoothedRttNanos = -1;
+        private volatile long rttVarianceNanos;
+        // Trace ID and write time of the last question written to this client
+        private volatile long questionTraceId;
+        private volatile long questionWrittenNanos;
+        private volatile boolean keepAliveRequested;
+        // Timestamp of the keep-alive awaiting its echo, or 0
+        private final AtomicLong keepAliveStamp = new AtomicLong();
 
-        public ClientHandler(Socket socket, ObjectOutputStream out, ObjectInputStream in,
-                             Player player, GameServer server) {
-            this.socket = socket;
-            this.out = out;
-            this.in = in;
+        public ClientHandler(FrameChannel connection, Player player, GameServer server) {
+            this.connection = connection;
             this.player = player;
             this.server = server;
             this.lastKeepAliveResponse = System.currentTimeMillis();
@@ -59,362 +133,1064 @@ public class GameServer {
 
         @Override
         public void run() {
+            FrameViews.AnswerView answerView = new FrameViews.AnswerView();
+            FrameViews.KeepAliveView keepAliveView = new FrameViews.KeepAliveView();
+            FrameViews.RenderAckView renderAckView = new FrameViews.RenderAckView();
             try {
-                while (running && !socket.isClosed()) {
-                    try {
-                        Message message = (Message) in.readObject();
-                        lastKeepAliveResponse = System.currentTimeMillis();
-
-                        switch (message.getType()) {
-                            case ANSWER:
-                                handleAnswer(player, message.getAnswerIndex());
-                                break;
-
-                            case LEAVE:
-                                running = false;
-                                break;
-
-                            case KEEP_ALIVE:
-                                // Send keep-alive response
-                                sendKeepAlive();
-                                break;
-                        }
-                    } catch (IOException e) {
-                        if (System.currentTimeMillis() - lastKeepAliveResponse > CLIENT_TIMEOUT) {
-                            throw new IOException("Client timeout - no response for " + 
-                                (System.currentTimeMillis() - lastKeepAliveResponse) + "ms");
-                        }
+                while (running && connection.isOpen()) {
+                    ByteBuffer frame = connection.nextFrame();
+                    long receivedNanos = System.nanoTime();
+                    lastKeepAliveResponse = System.currentTimeMillis();
+
+                    MessageType type = FrameViews.typeOf(frame);
+                    if (type == null) {
+                        throw new IOException("Unknown message type");
+                    }
+                    bytesReceived[type.ordinal()].add(MessageCodec.HEADER_SIZE + frame.remaining());
+                    // Rate limits are checked on the type byte alone, before
+                    // any of the payload is read
+                    if (!buckets[type.ordinal()].tryAcquire(receivedNanos) && !admitOverLimit(type)) {
+                        continue;
+                    }
+                    switch (type) {
+                        case ANSWER:
+                            answerView.wrap(frame);
+                            submitOwnAnswer(answerView.getQuestionNumber(), answerView.getAnswerIndex(),
+                                    receivedNanos);
+                            recordAnswerHops(answerView.getClientMicros(), receivedNanos);
+                            break;
+
+                        case RENDER_ACK:
+                            recordRenderHops(renderAckView.wrap(frame), receivedNanos);
+                            break;
+
+                        case LEAVE:
+                            running = false;
+                            break;
+
+                        case KEEP_ALIVE:
+                            long echoTimestamp = keepAliveView.wrap(frame).getEchoTimestamp();
+                            if (echoTimestamp != 0) {
+                                // Only the echo of the keep-alive we sent
+                                // last counts, and only once, so a client
+                                // cannot make up its round trip
+                                if (keepAliveStamp.compareAndSet(echoTimestamp, 0)) {
+                                    recordRoundTrip(receivedNanos - echoTimestamp);
+                                }
+                            } else {
+                                // Answered by this client's broadcast writer
+                                fanout.requestKeepAlive(this);
+                            }
+                            break;
+
+                        default:
+                            break;
                     }
                 }
             } catch (Exception e) {
-                System.out.println("Client disconnected: " + player.getName() + " - " + e.getMessage());
+                LOG.info("Client disconnected", "room", roomCode, "player", player.getName(), "reason", e.getMessage());
             } finally {
                 close();
-                server.removeClient(player.getName());
+                connection.releaseReadBuffer();
+                server.removeClient(this);
             }
         }
 
-        public void sendMessage(Message message) throws IOException {
-            synchronized (out) {
-                out.writeObject(message);
-                out.reset();
-                out.flush();
+        /**
+         * Applies the policy for a frame over its rate limit. Returns true if
+         * the frame should still be processed.
+         */
+        private boolean admitOverLimit(MessageType type) throws IOException {
+            TokenBucket bucket = buckets[type.ordinal()];
+            switch (limits.getPolicy(type)) {
+                case DISCONNECT:
+                    throw new IOException("Exceeded " + type + " rate limit");
+                case DELAY:
+                    // Not reading lets TCP push back on the client
+                    long now;
+                    while (!bucket.tryAcquire(now = System.nanoTime())) {
+                        LockSupport.parkNanos(bucket.nanosUntilAvailable(now));
+                    }
+                    return true;
+                default:
+                    rateLimitedFrames++;
+                    if (Integer.bitCount(rateLimitedFrames) == 1) {
+                        LOG.warn("Dropped frame over rate limit", "room", roomCode, "player", player.getName(),
+                                "type", type, "droppedSoFar", rateLimitedFrames);
+                    }
+                    return false;
             }
         }
 
+        /**
+         * Writes as much of a batch of encoded frames as the socket takes
+         * without blocking; returns the number of bytes written. Only the
+         * client's broadcast writer calls this once the client has joined.
+         */
+        public long sendFrames(ByteBuffer[] frames, int count) throws IOException {
+            return connection.writeAvailable(frames, 0, count);
+        }
+
+        /**
+         * Writes a keep-alive straight away; only used during the handshake,
+         * while the channel still blocks.
+         */
         public void sendKeepAlive() throws IOException {
-            Message keepAlive = new Message(MessageType.KEEP_ALIVE);
-            sendMessage(keepAlive);
+            long now = System.nanoTime();
+            keepAliveStamp.set(now);
+            connection.writeKeepAlive(now);
+        }
+
+        /**
+         * Called by the broadcast writer with the timestamp of a keep-alive
+         * it is about to write; the echo of any earlier one no longer counts.
+         */
+        void keepAliveStamped(long stampNanos) {
+            keepAliveStamp.set(stampNanos);
+        }
+
+        /**
+         * Asks for a keep-alive to go out with the next batch the client's
+         * broadcast writer sends.
+         */
+        void requestKeepAlive() {
+            keepAliveRequested = true;
+        }
+
+        /**
+         * Called by the broadcast writer; returns whether a keep-alive was
+         * asked for since the last call.
+         */
+        boolean takeKeepAliveRequest() {
+            if (!keepAliveRequested) {
+                return false;
+            }
+            keepAliveRequested = false;
+            return true;
+        }
+
+        /**
+         * Folds a round-trip sample into the smoothed estimate the same way
+         * TCP does (RFC 6298), so one slow echo does not swing it.
+         */
+        private void recordRoundTrip(long rttNanos) {
+            if (rttNanos <= 0) {
+                return;
+            }
+            if (smoothedRttNanos < 0) {
+                smoothedRttNanos = rttNanos;
+                rttVarianceNanos = rttNanos / 2;
+            } else {
+                rttVarianceNanos = (3 * rttVarianceNanos + Math.abs(smoothedRttNanos - rttNanos)) / 4;
+                smoothedRttNanos = (7 * smoothedRttNanos + rttNanos) / 8;
+            }
+            link.recordRoundTrip(rttNanos, smoothedRttNanos);
+        }
+
+        /**
+         * Times an answer from when the question was written to this
+         * client, or from the reveal, with no round trip taken off, if the
+         * answer came before the question had reached it.
+         */
+        private void submitOwnAnswer(int questionNumber, int answerIndex, long receivedNanos) {
+            long traceId = questionTraceId;
+            long writtenNanos = questionWrittenNanos;
+            if (traceId != 0 && traceId == questionRevealNanos) {
+                handleAnswer(player, questionNumber, answerIndex, receivedNanos, writtenNanos, smoothedRttNanos);
+            } else {
+                handleAnswer(player, questionNumber, answerIndex, receivedNanos, questionRevealNanos, 0);
+            }
+        }
+
+        private void recordAnswerHops(int clientMicros, long receivedNanos) {
+            hops.record(HopLatencies.Hop.ANSWER_SERVER, (System.nanoTime() - receivedNanos) / 1000);
+            hops.record(HopLatencies.Hop.ANSWER_CLIENT, clientMicros);
+            if (smoothedRttNanos > 0) {
+                hops.record(HopLatencies.Hop.ANSWER_WIRE, smoothedRttNanos / 2000);
+            }
+        }
+
+        /**
+         * Splits the time from the question being written to the ack
+         * arriving into the client's own hops, as it reported them, and the
+         * wire time both ways, which is halved for the trip out.
+         */
+        private void recordRenderHops(FrameViews.RenderAckView ack, long receivedNanos) {
+            long clientMicros = (long) ack.getDecodeMicros() + ack.getEdtMicros() + ack.getRenderMicros();
+            hops.record(HopLatencies.Hop.DECODE, ack.getDecodeMicros());
+            hops.record(HopLatencies.Hop.EDT, ack.getEdtMicros());
+            hops.record(HopLatencies.Hop.RENDER, ack.getRenderMicros());
+            if (ack.getTraceId() != questionTraceId || questionTraceId == 0) {
+                // Ack for an earlier question, or one written before this connection
+                return;
+            }
+            long roundTripMicros = (receivedNanos - questionWrittenNanos) / 1000 - clientMicros;
+            long wireMicros = Math.max(0, roundTripMicros / 2);
+            hops.record(HopLatencies.Hop.WIRE, wireMicros);
+            hops.record(HopLatencies.Hop.REVEAL_TO_RENDER,
+                    Math.max(0, (receivedNanos - questionTraceId) / 1000 - wireMicros));
+        }
+
+        /**
+         * Called by the broadcast writer once a QUESTION frame is on this
+         * client's socket.
+         */
+        void questionWritten(long traceId, long writtenNanos) {
+            questionWrittenNanos = writtenNanos;
+            questionTraceId = traceId;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        /**
+         * Broadcast frames waiting to be written to this client.
+         */
+        public OutboundQueue getOutbound() {
+            return outbound;
+        }
+
+        /**
+         * Throughput and congestion estimate that paces non-critical
+         * updates to this client.
+         */
+        public LinkEstimator getLink() {
+            return link;
+        }
+
+        public long getSmoothedRttMillis() {
+            return smoothedRttNanos < 0 ? -1 : smoothedRttNanos / 1_000_000;
+        }
+
+        /**
+         * Milliseconds since anything was last received from the client.
+         */
+        public long getIdleMillis() {
+            return System.currentTimeMillis() - lastKeepAliveResponse;
         }
 
         public void close() {
             running = false;
             try {
-                if (!socket.isClosed()) {
-                    socket.close();
-                }
+                connection.close();
             } catch (IOException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing client connection", "room", roomCode, "player", player.getName(), e);
             }
         }
     }
 
     public GameServer(Quiz quiz, String roomCode) {
+        this(quiz, roomCode, DEFAULT_PORT);
+    }
+
+    /**
+     * Creates a room that listens on its own port, so several rooms can be
+     * hosted by one process. Port 0 picks a free port on start.
+     */
+    public GameServer(Quiz quiz, String roomCode, int port) {
         this.quiz = quiz;
+        this.port = port;
         this.roomCode = roomCode;
-        this.clients = Collections.synchronizedMap(new HashMap<>());
+        this.clients = new ClientRegistry();
         this.players = Collections.synchronizedList(new ArrayList<>());
+        this.detachedPlayers = new HashMap<>();
+        this.stateStore = new RoomStateStore(roomCode);
+        this.responseTimeSketches = new LatencySketch[quiz.getQuestionCount()];
+        this.scoring = new ScoringShards(Runtime.getRuntime().availableProcessors(), this::scoreAnswer);
+        this.fanout = new BroadcastFanout(roomCode, Math.max(2, Runtime.getRuntime().availableProcessors()), hops);
+        this.fanout.setTickMillis(WRITE_TICK);
+        this.fanout.setStallTimeoutMillis(WRITE_STALL_TIMEOUT);
+        this.fanout.setRevealSkewCallback(skewMicros ->
+                LOG.info("Question revealed", "room", roomCode, "skewMicros", skewMicros));
+        this.gameLoop = new GameLoop(this, quiz, timers, roomWorkers);
         this.isRunning = false;
     }
 
+    /**
+     * Rebuilds a room left behind by a host that stopped unexpectedly.
+     * Recovered players are held until they reconnect under the same name,
+     * at which point they continue with their existing score.
+     */
+    public static GameServer recover(String roomCode) {
+        return recover(roomCode, DEFAULT_PORT);
+    }
+
+    public static GameServer recover(String roomCode, int port) {
+        RoomStateStore.RecoveredRoom room = new RoomStateStore(roomCode).load();
+        if (room == null) {
+            return null;
+        }
+
+        GameServer server = new GameServer(room.getQuiz(), roomCode, port);
+        server.detachedPlayers.putAll(room.getPlayers());
+        LOG.info("Recovered room", "room", roomCode, "players", room.getPlayers().size(),
+                "recoveryMillis", room.getRecoveryMillis());
+        return server;
+    }
+
     public void start() throws IOException {
-        serverSocket = new ServerSocket(PORT);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        port = serverChannel.socket().getLocalPort();
         isRunning = true;
 
         String hostAddress = InetAddress.getLocalHost().getHostAddress();
-        System.out.println("Game server started on IP: " + hostAddress);
-        System.out.println("Room code: " + roomCode);
+        LOG.info("Game server started", "room", roomCode, "address", hostAddress, "port", port);
         logger = new Logger(quiz.roomCode);
 
+        stateStore.writeSnapshot(quiz, this::getAllPlayers);
+        registerMetrics();
         startKeepAliveTimer();
+        startSnapshotTimer();
+        startTallyTimer();
 
         new Thread(() -> {
             try {
                 while (isRunning) {
-                    Socket clientSocket = serverSocket.accept();
-                    clientSocket.setKeepAlive(true);
-                    clientSocket.setTcpNoDelay(true);
-                    handleNewClient(clientSocket);
+                    SocketChannel clientChannel = serverChannel.accept();
+                    handleNewClient(clientChannel);
                 }
             } catch (IOException e) {
                 if (isRunning) {
-                    e.printStackTrace();
+                    LOG.error("Error accepting clients", "room", roomCode, e);
                 }
             }
         }).start();
     }
 
+    /**
+     * Sweeps the clients from the timing wheel. Nothing here may block: the
+     * keep-alives are written by each client's broadcast writer, and a
+     * client that timed out is only closed here and removed by its own
+     * reader thread once the read fails.
+     */
     private void startKeepAliveTimer() {
-        keepAliveTimer = new Timer(true);
-        keepAliveTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                synchronized (clients) {
-                    List<String> disconnectedClients = new ArrayList<>();
-                    for (Map.Entry<String, ClientHandler> entry : clients.entrySet()) {
-                        try {
-                            entry.getValue().sendKeepAlive();
-                        } catch (IOException e) {
-                            System.out.println("Client " + entry.getKey() + " failed keep-alive check: " + e.getMessage());
-                            disconnectedClients.add(entry.getKey());
-                        }
-                    }
-                    for (String clientName : disconnectedClients) {
-                        removeClient(clientName);
-                    }
+        keepAliveCheck = timers.scheduleAtFixedRate(() -> {
+            for (ClientHandler handler : clients.snapshot()) {
+                // Channel reads have no timeout, so silent clients are
+                // caught here instead
+                if (handler.getIdleMillis() > CLIENT_TIMEOUT) {
+                    recordKeepAliveFailure(handler, "timed out");
+                    LOG.warn("Client timed out", "room", roomCode, "player", handler.player.getName(),
+                            "idleMillis", handler.getIdleMillis());
+                    handler.close();
+                    continue;
                 }
+                reportThrottling(handler);
+                fanout.requestKeepAlive(handler);
+            }
+            publishRoundTripTimes();
+        }, KEEP_ALIVE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private void recordKeepAliveFailure(ClientHandler handler, String reason) {
+        keepAliveFailures.increment();
+        FlightEvents.KeepAliveFailure event = new FlightEvents.KeepAliveFailure();
+        if (event.shouldCommit()) {
+            event.room = roomCode;
+            event.slot = handler.player.getSlot();
+            event.player = handler.player.getName();
+            event.idleMillis = handler.getIdleMillis();
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
+    /**
+     * Publishes this room's counters under its room code. Recording them is
+     * a striped add or a sketch update; they are only summed when scraped.
+     */
+    private void registerMetrics() {
+        String[] room = {"room", roomCode};
+        metrics.gauge("quiz_connected_clients", "Players connected", clients::size, room);
+        metrics.counter("quiz_joins_total", "Players that joined", joins::sum, room);
+        metrics.counter("quiz_answers_total", "Answers accepted for scoring", acceptedAnswers::sum, room);
+        metrics.counter("quiz_answers_rejected_total", "Answers rejected as late, duplicate or invalid",
+                rejectedAnswers::sum, room);
+        metrics.counter("quiz_keepalive_failures_total", "Clients dropped for failing a keep-alive check",
+                keepAliveFailures::sum, room);
+        for (MessageType type : MessageType.values()) {
+            metrics.counter("quiz_bytes_received_total", "Bytes received from clients, by message type",
+                    bytesReceived[type.ordinal()]::sum, BroadcastFanout.withLabel(room, "type", type.name()));
+        }
+        fanout.registerMetrics(metrics, room);
+        hops.registerMetrics(metrics, room);
+        metrics.histogram("quiz_timer_jitter_micros", "Lateness of timer callbacks", timers.getFiringJitter());
+        metrics.registerMBean();
+    }
+
+    private void reportThrottling(ClientHandler handler) {
+        LinkEstimator link = handler.getLink();
+        if (!link.throttlingChanged()) {
+            return;
+        }
+        if (link.getUpdateIntervalMillis() > 0) {
+            LOG.info("Slowing updates", "room", roomCode, "player", handler.player.getName(),
+                    "intervalMillis", link.getUpdateIntervalMillis(), "queueDelayMillis", link.getQueueDelayMillis(),
+                    "kbPerSecond", Math.round(link.getBytesPerSecond() / 1024));
+        } else {
+            LOG.info("Full update rate restored", "room", roomCode, "player", handler.player.getName());
+        }
+    }
+
+    private void publishRoundTripTimes() {
+        if (rttCallback == null) {
+            return;
+        }
+        LatencySketch roundTripTimes = new LatencySketch();
+        for (ClientHandler handler : clients.snapshot()) {
+            long rtt = handler.getSmoothedRttMillis();
+            if (rtt >= 0) {
+                roundTripTimes.record(rtt);
+            }
+        }
+        rttCallback.accept(roundTripTimes);
+    }
+
+    private void startSnapshotTimer() {
+        snapshotTask = timers.scheduleAtFixedRate(() -> {
+            if (stateDirty) {
+                runBlocking(snapshotQueued, this::writeSnapshot);
+            }
+        }, SNAPSHOT_INTERVAL, TimeUnit.MILLISECONDS);
+
+        // Log writes are buffered; flushing on a short interval keeps them
+        // off the scoring path
+        logFlushTask = timers.scheduleAtFixedRate(() -> runBlocking(flushQueued, () -> {
+            stateStore.flush();
+            logger.flush();
+        }), LOG_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private void writeSnapshot() {
+        stateDirty = false;
+        try {
+            stateStore.writeSnapshot(quiz, this::getAllPlayers);
+        } catch (IOException e) {
+            stateDirty = true;
+            LOG.error("Error writing room snapshot", "room", roomCode, "reason", e.getMessage());
+        }
+    }
+
+    /**
+     * Hands disk work from the timing wheel to a room worker. While one
+     * run is queued or under way another is not queued, so a stalled disk
+     * does not pile up work behind it.
+     */
+    private void runBlocking(AtomicBoolean queued, Runnable work) {
+        if (!queued.compareAndSet(false, true)) {
+            return;
+        }
+        roomWorkers.execute(() -> {
+            try {
+                work.run();
+            } finally {
+                queued.set(false);
             }
-        }, KEEP_ALIVE_INTERVAL, KEEP_ALIVE_INTERVAL);
+        });
     }
 
-    private void handleNewClient(Socket clientSocket) {
+    /**
+     * Pushes the live answer distribution to the host at a bounded rate,
+     * and only when it has changed since the last update.
+     */
+    private void startTallyTimer() {
+        tallyTask = timers.scheduleAtFixedRate(() -> {
+            AnswerTally tally = answerTally;
+            long total = tally.total();
+            if (total == publishedTallyTotal) {
+                return;
+            }
+            publishedTallyTotal = total;
+            if (answerTallyCallback != null) {
+                answerTallyCallback.accept(tally.snapshot());
+            }
+            if (responseTimeCallback != null) {
+                responseTimeCallback.accept(currentResponseTimes);
+            }
+        }, TALLY_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns connected players together with recovered players that have
+     * not reconnected yet, so a snapshot never loses anyone's score.
+     */
+    private List<Player> getAllPlayers() {
+        List<Player> allPlayers;
+        synchronized (players) {
+            allPlayers = new ArrayList<>(players);
+        }
+        synchronized (detachedPlayers) {
+            allPlayers.addAll(detachedPlayers.values());
+        }
+        return allPlayers;
+    }
+
+    private void handleNewClient(SocketChannel clientChannel) {
+        FlightEvents.Handshake handshake = new FlightEvents.Handshake();
+        handshake.begin();
+        handshake.outcome = "error";
+        FrameChannel connection = null;
+        TimingWheel.Timeout handshakeDeadline = null;
         try {
-            clientSocket.setKeepAlive(true);
-            clientSocket.setTcpNoDelay(true);
-            clientSocket.setSoTimeout(10000); // 10 second read timeout
-            
-            ObjectOutputStream out = new ObjectOutputStream(clientSocket.getOutputStream());
-            ObjectInputStream in = new ObjectInputStream(clientSocket.getInputStream());
+            clientChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            clientChannel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER_SIZE);
+            connection = new FrameChannel(clientChannel, BufferPool.SHARED);
+            FrameCapture capture = this.capture;
+            if (capture != null) {
+                connection.setCapture(capture);
+            }
 
-            Message joinMessage = (Message) in.readObject();
+            // Channel reads ignore SO_TIMEOUT, so a client that never sends
+            // JOIN is cut off by closing its channel
+            handshakeDeadline = timers.schedule(() -> {
+                try {
+                    clientChannel.close();
+                } catch (IOException e) {
+                    // already closed
+                }
+            }, HANDSHAKE_TIMEOUT, TimeUnit.MILLISECONDS);
+            Message joinMessage = connection.read();
+            handshakeDeadline.cancel();
 
             if (joinMessage.getType() == MessageType.JOIN &&
-                    joinMessage.getRoomCode().equals(roomCode)) {
+                    roomCode.equals(joinMessage.getRoomCode())) {
 
                 String playerName = joinMessage.getPlayerName();
                 
-                // Check if player with same name already exists
-                synchronized (clients) {
-                    if (clients.containsKey(playerName)) {
-                        Message response = new Message(MessageType.JOIN_FAILED, "Player name already taken");
-                        out.writeObject(response);
-                        out.flush();
-                        clientSocket.close();
-                        return;
-                    }
+                Player player;
+                synchronized (detachedPlayers) {
+                    player = detachedPlayers.remove(playerName);
+                }
+                boolean recovered = player != null;
+                if (!recovered) {
+                    player = new Player(playerName);
                 }
 
-                Player player = new Player(playerName);
-
-                ClientHandler handler = new ClientHandler(clientSocket, out, in, player, this);
-                synchronized (clients) {
-                    clients.put(playerName, handler);
+                player.setSlot(nextPlayerSlot.getAndIncrement());
+                handshake.player = playerName;
+                handshake.slot = player.getSlot();
+                handshake.recovered = recovered;
+                ClientHandler handler = new ClientHandler(connection, player, this);
+                // Holding the write lock until JOIN_SUCCESS is written keeps
+                // any broadcast that sees the new client from overtaking it
+                synchronized (connection.getWriteLock()) {
+                    if (!clients.add(playerName, handler)) {
+                        if (recovered) {
+                            synchronized (detachedPlayers) {
+                                detachedPlayers.put(playerName, player);
+                            }
+                        }
+                        connection.write(new Message(MessageType.JOIN_FAILED, "Player name already taken"));
+                        connection.close();
+                        connection.releaseReadBuffer();
+                        handshake.outcome = "name taken";
+                        return;
+                    }
+                    connection.write(new Message(MessageType.JOIN_SUCCESS));
+                    // First round trip, taken before any backlog can build,
+                    // is the baseline for the client's queueing delay
+                    handler.sendKeepAlive();
+                    // Everything after the handshake is written by the
+                    // client's broadcast writer, which must never block
+                    connection.setNonBlocking();
                 }
+                stateStore.logJoin(playerName);
+                stateDirty = true;
+                joins.increment();
 
                 synchronized (players) {
                     players.add(player);
                 }
+                scoring.addPlayer(player);
+                fanout.addClient(handler);
 
                 Thread handlerThread = new Thread(handler);
                 handlerThread.setDaemon(true);
                 handlerThread.start();
+                connection = null; // the handler thread owns it from here
+                handshake.outcome = "joined";
 
-                Message response = new Message(MessageType.JOIN_SUCCESS);
-                out.writeObject(response);
-                out.flush();
-
-                if (playerUpdateCallback != null) {
-                    playerUpdateCallback.accept(getConnectedPlayers());
-                }
+                publishPlayers(getConnectedPlayers());
 
             } else {
-                Message response = new Message(MessageType.JOIN_FAILED, "Invalid room code");
-                out.writeObject(response);
-                out.flush();
-                clientSocket.close();
+                connection.write(new Message(MessageType.JOIN_FAILED, "Invalid room code"));
+                connection.close();
+                connection.releaseReadBuffer();
+                handshake.outcome = "invalid room";
             }
 
         } catch (Exception e) {
-            System.out.println("Error handling new client: " + e.getMessage());
+            LOG.warn("Error handling new client", "room", roomCode, "reason", e.getMessage());
+            if (handshakeDeadline != null) {
+                handshakeDeadline.cancel();
+            }
             try {
-                clientSocket.close();
+                clientChannel.close();
             } catch (IOException ex) {
-                ex.printStackTrace();
+                LOG.warn("Error closing rejected client", "room", roomCode, ex);
+            }
+            if (connection != null) {
+                connection.releaseReadBuffer();
+            }
+        } finally {
+            if (handshake.shouldCommit()) {
+                handshake.room = roomCode;
+                handshake.commit();
             }
         }
     }
 
     public void removeClient(String playerName) {
-        synchronized (clients) {
-            ClientHandler handler = clients.remove(playerName);
-            if (handler != null) {
-                handler.close();
-            }
+        ClientHandler handler = clients.get(playerName);
+        if (handler != null) {
+            removeClient(handler);
+        }
+    }
+
+    private void removeClient(ClientHandler handler) {
+        FlightEvents.ClientRemoved event = new FlightEvents.ClientRemoved();
+        event.begin();
+        handler.close();
+        if (!clients.remove(handler.player.getName(), handler)) {
+            // Already removed, or the name now belongs to a newer connection
+            return;
         }
 
         synchronized (players) {
-            players.removeIf(p -> p.getName().equals(playerName));
+            players.removeIf(p -> p == handler.player);
         }
+        scoring.removePlayer(handler.player);
+        fanout.removeClient(handler);
 
-        if (playerUpdateCallback != null) {
-            playerUpdateCallback.accept(getConnectedPlayers());
+        // Mid-game, the player is held like a recovered one, so snapshots
+        // keep their score and they carry on with it if they rejoin
+        GameLoop.Phase phase = gameLoop.getPhase();
+        if (phase == GameLoop.Phase.QUESTION || phase == GameLoop.Phase.REVIEW) {
+            synchronized (detachedPlayers) {
+                detachedPlayers.put(handler.player.getName(), handler.player);
+            }
+            stateDirty = true;
+        }
+
+        publishPlayers(getConnectedPlayers());
+
+        if (event.shouldCommit()) {
+            event.room = roomCode;
+            event.slot = handler.player.getSlot();
+            event.player = handler.player.getName();
+            event.remaining = clients.size();
+            event.commit();
         }
-        
-        System.out.println("Player " + playerName + " disconnected");
+        LOG.info("Player removed", "room", roomCode, "player", handler.player.getName(), "remaining", clients.size());
     }
 
     public void stop() {
         isRunning = false;
-        if (keepAliveTimer != null) {
-            keepAliveTimer.cancel();
+        for (TimingWheel.Timeout task : new TimingWheel.Timeout[] {keepAliveCheck, snapshotTask, logFlushTask, tallyTask}) {
+            if (task != null) {
+                task.cancel();
+            }
+        }
+        gameLoop.shutdown();
+        metrics.unregister("room", roomCode);
+        // Answers still queued on the shards are scored, and so logged,
+        // before the logs are closed
+        openQuestionNumber = 0;
+        try {
+            scoring.shutdown().get(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            LOG.warn("Scoring did not finish before shutdown", "room", roomCode, "reason", e.toString());
         }
+        if (logger != null) {
+            logger.close();
+        }
+        stateStore.close();
+        fanout.shutdown();
 
-        synchronized (clients) {
-            for (ClientHandler handler : clients.values()) {
-                handler.close();
-            }
-            clients.clear();
+        for (ClientHandler handler : clients.clear()) {
+            handler.close();
         }
 
         try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.warn("Error closing server socket", "room", roomCode, e);
         }
     }
 
+    /**
+     * Starts the quiz from the question after the last one asked. Questions,
+     * deadlines and the results are then driven by the game loop.
+     */
+    public void startGame() {
+        gameLoop.start();
+    }
+
+    /**
+     * Ends the quiz early and sends the results.
+     */
+    public void endGame() {
+        gameLoop.end();
+    }
+
+    /**
+     * Closes the open question now, or moves on to the next question while
+     * the last answer is shown.
+     */
+    public void nextQuestion() {
+        gameLoop.advance();
+    }
+
+    public void addGameListener(GameListener listener) {
+        gameLoop.addListener(listener);
+    }
+
+    public void removeGameListener(GameListener listener) {
+        gameLoop.removeListener(listener);
+    }
+
+    public GameLoop.Phase getGamePhase() {
+        return gameLoop.getPhase();
+    }
+
     public void broadcastQuestion(Question question, int questionNumber) {
         Message message = new Message(MessageType.QUESTION);
         message.setQuestion(question);
         message.setQuestionNumber(questionNumber + 1);
         message.setTotalQuestions(quiz.getQuestionCount());
-
-        synchronized (clients) {
-            for (ClientHandler handler : clients.values()) {
-                try {
-                    handler.sendMessage(message);
-                } catch (IOException e) {
-                    // Client will be removed when its handler detects the error
-                }
-            }
+        answerTally = new AnswerTally(question.getOptions().length);
+        publishedTallyTotal = 0;
+        LatencySketch responseTimes = new LatencySketch();
+        if (questionNumber >= 0 && questionNumber < responseTimeSketches.length) {
+            responseTimeSketches[questionNumber] = responseTimes;
+        }
+        currentResponseTimes = responseTimes;
+        if (responseTimeCallback != null) {
+            responseTimeCallback.accept(responseTimes);
+        }
+        questionRevealNanos = System.nanoTime();
+        // The reveal time doubles as the trace ID clients echo in RENDER_ACK
+        message.setTraceId(questionRevealNanos);
+        answeredSlots = new AnsweredSet(nextPlayerSlot.get());
+        openQuestionNumber = questionNumber + 1;
+        if (answerTallyCallback != null) {
+            answerTallyCallback.accept(answerTally.snapshot());
         }
+        stateStore.logQuestion(questionNumber);
+        stateDirty = true;
+
+        fanout.broadcastReveal(message);
     }
 
     public void broadcastTimeUp() {
+        openQuestionNumber = 0;
         Message message = new Message(MessageType.TIME_UP);
+        message.setAnswerCounts(answerTally.snapshot());
 
-        synchronized (clients) {
-            for (ClientHandler handler : clients.values()) {
-                try {
-                    handler.sendMessage(message);
-                } catch (IOException e) {
-                    // Client will be removed when its handler detects the error
-                }
+        fanout.broadcast(message);
+
+        broadcastStandings();
+    }
+
+    /**
+     * Closes scoring for the question and, once the shards have caught up,
+     * sends the leaderboard to players and the full ranking to the host.
+     * The caller does not wait for the shards.
+     */
+    private void broadcastStandings() {
+        scoring.closeQuestion().thenAccept(standings -> {
+            if (scoring.getLastIngestionRate() > 0) {
+                LOG.info("Scored answers", "room", roomCode, "answersPerSecond",
+                        Math.round(scoring.getLastIngestionRate()));
             }
+            double[] writeRates = fanout.sampleWriteRates();
+            LOG.info("Broadcast writes", "room", roomCode, "syscallsPerSecond", Math.round(writeRates[0]),
+                    "framesPerWrite", Math.round(writeRates[1] * 10) / 10.0);
+            if (resultsSent) {
+                // The quiz ended while the shards caught up
+                return;
+            }
+
+            Message message = new Message(MessageType.SCORE_UPDATE);
+            message.setPlayerResults(new ArrayList<>(standings.subList(0, Math.min(LEADERBOARD_SIZE, standings.size()))));
+            fanout.broadcast(message);
+
+            publishPlayers(standings);
+        }).exceptionally(e -> {
+            LOG.error("Error sending standings", "room", roomCode, e);
+            return null;
+        });
+    }
+
+    private void publishPlayers(List<Player> players) {
+        if (playerUpdateCallback != null) {
+            playerUpdateCallback.accept(players);
         }
+        gameLoop.playersChanged(players);
     }
 
+    /**
+     * Stops accepting answers and returns the final ranking, as snapshots,
+     * once every answer accepted so far has been scored.
+     */
+    List<Player> closeScoring() {
+        openQuestionNumber = 0;
+        List<Player> standings = scoring.closeQuestion().join();
+        resultsSent = true;
+        return standings;
+    }
+
+    /**
+     * Sends the final ranking and closes the answer log. Scoring must be
+     * closed first, see {@link #closeScoring()}.
+     */
     public void broadcastResults(List<Player> results) {
+        resultsSent = true;
         Message message = new Message(MessageType.RESULTS);
-        message.setPlayerResults(getConnectedPlayers());
+        message.setPlayerResults(results);
+        fanout.broadcast(message);
+
         logger.close();
+    }
 
-        synchronized (clients) {
-            for (ClientHandler handler : clients.values()) {
-                try {
-                    handler.sendMessage(message);
-                } catch (IOException e) {
-                    // Client will be removed when its handler detects the error
-                }
-            }
+    /**
+     * Scores an answer. Only the first answer from each player to the open
+     * question counts; anything else is rejected and counted against the
+     * player. The response time runs from when the question was written to
+     * the player's socket to receipt, on the monotonic clock. The client's
+     * smoothed round-trip time is taken off it, up to MAX_RTT_COMPENSATION,
+     * since the question and the answer each spent half a round trip on the
+     * wire, so players on slow links are not penalised for it.
+     */
+    public void handleAnswer(Player player, int questionNumber, int answerIndex, long receivedNanos,
+            long questionSentNanos, long rttNanos) {
+        FlightEvents.Answer event = new FlightEvents.Answer();
+        event.begin();
+        String rejection = submitAnswer(player, questionNumber, answerIndex, receivedNanos, questionSentNanos,
+                rttNanos);
+        if (rejection != null) {
+            rejectAnswer(player, rejection);
+        }
+        if (event.shouldCommit()) {
+            event.room = roomCode;
+            event.slot = player.getSlot();
+            event.question = questionNumber;
+            event.option = answerIndex;
+            event.rejection = rejection;
+            event.commit();
         }
     }
 
-    public void handleAnswer(Player player, int answerIndex) {
-        synchronized (players) {
-            Question currentQuestion = quiz.getQuestionAt(quiz.currentQuestionIndex);
-            logger.logAnswer(player.getName(),quiz.currentQuestionIndex, String.valueOf(answerIndex),String.valueOf(currentQuestion.getCorrectAnswerIndex()),0);
-            if (currentQuestion != null && currentQuestion.isCorrectAnswer(answerIndex)) {
-                player.incrementCorrectAnswers();
-                // Update all clients with the new scores immediately
-                broadcastResults(getConnectedPlayers());
-            }
+    /**
+     * Hands an answer to scoring, or returns why it was rejected.
+     */
+    private String submitAnswer(Player player, int questionNumber, int answerIndex, long receivedNanos,
+            long questionSentNanos, long rttNanos) {
+        int openQuestion = openQuestionNumber;
+        AnsweredSet answered = answeredSlots;
+        Question question = quiz.getQuestionAt(openQuestion - 1);
+        if (openQuestion == 0 || questionNumber != openQuestion || question == null) {
+            return "question " + questionNumber + " is not open";
+        }
+        if (answerIndex < 0 || answerIndex >= question.getOptions().length) {
+            return "no option " + answerIndex;
         }
+        if (!answered.markFirst(player.getSlot())) {
+            return "already answered";
+        }
+
+        long elapsedNanos = receivedNanos - questionSentNanos;
+        if (rttNanos > 0) {
+            elapsedNanos -= Math.min(rttNanos, MAX_RTT_COMPENSATION * 1_000_000);
+        }
+        long responseMillis = Math.max(0, elapsedNanos / 1_000_000);
+        acceptedAnswers.increment();
+        answerTally.record(answerIndex);
+        currentResponseTimes.record(responseMillis);
+        scoring.submit(player, openQuestion - 1, answerIndex, responseMillis);
+        return null;
     }
 
+    /**
+     * Counts a rejected answer. Only every power-of-two rejection is logged
+     * so a client flooding answers cannot flood the log as well.
+     */
+    private void rejectAnswer(Player player, String reason) {
+        rejectedAnswers.increment();
+        int rejected = player.incrementRejectedAnswers();
+        if (Integer.bitCount(rejected) == 1) {
+            LOG.warn("Rejected answer", "room", roomCode, "player", player.getName(), "reason", reason,
+                    "rejectedSoFar", rejected);
+        }
+    }
+
+    /**
+     * Applies an answer to the player's score. Runs on the scoring shard that
+     * owns the player, so no lock is needed.
+     */
+    private void scoreAnswer(Player player, int questionIndex, int answerIndex, long responseMillis) {
+        Question question = quiz.getQuestionAt(questionIndex);
+        if (question == null || resultsSent) {
+            // An answer that slipped in as the quiz ended; the results are out
+            return;
+        }
+        player.setAnsweredTime(responseMillis);
+        logger.logAnswer(player.getName(), questionIndex, String.valueOf(answerIndex),
+                String.valueOf(question.getCorrectAnswerIndex()), responseMillis);
+        if (question.isCorrectAnswer(answerIndex)) {
+            player.incrementCorrectAnswers();
+            player.addScore(speedPoints(responseMillis, question.getTimeLimit()));
+            stateStore.logScore(player.getName(), player.getCorrectAnswers(), player.getScore());
+            stateDirty = true;
+        }
+    }
+
+    /**
+     * Called once the quiz has finished normally; there is nothing left to
+     * recover, so the persisted room state is removed.
+     */
+    public void markQuizCompleted() {
+        if (snapshotTask != null) {
+            snapshotTask.cancel();
+            logFlushTask.cancel();
+        }
+        stateStore.discard();
+    }
+
+    /**
+     * A correct answer earns between half and all of MAX_POINTS, falling
+     * linearly with the time taken over the question's time limit.
+     */
+    private static int speedPoints(long responseMillis, int timeLimitSeconds) {
+        long limitMillis = Math.max(1, timeLimitSeconds * 1000L);
+        double fraction = Math.min(1.0, (double) responseMillis / limitMillis);
+        return (int) Math.round(MAX_POINTS * (1.0 - fraction / 2));
+    }
+
+    /**
+     * Connected players in ranking order, as snapshots. The scoring shards
+     * keep changing the players' scores, which would leave a sort of the
+     * live objects inconsistent.
+     */
     public List<Player> getConnectedPlayers() {
+        List<Player> ranked;
         synchronized (players) {
-            List<Player> sortedPlayers = new ArrayList<>(players);
-            Collections.sort(sortedPlayers, (p1, p2) -> {
-                int scoreCompare = Integer.compare(p2.getCorrectAnswers(), p1.getCorrectAnswers());
-                if (scoreCompare != 0) {
-                    return scoreCompare;
-                }
-                return p1.getName().compareTo(p2.getName());
-            });
-            return sortedPlayers;
+            ranked = new ArrayList<>(players.size());
+            for (Player player : players) {
+                ranked.add(player.snapshot());
+            }
         }
+        ranked.sort(ScoringShards.RANKING);
+        return ranked;
     }
 
     public void setPlayerUpdateCallback(Consumer<List<Player>> callback) {
         this.playerUpdateCallback = callback;
     }
 
-    public String getRoomCode() {
-        return roomCode;
+    public void setAnswerTallyCallback(Consumer<int[]> callback) {
+        this.answerTallyCallback = callback;
+    }
+
+    public void setResponseTimeCallback(Consumer<LatencySketch> callback) {
+        this.responseTimeCallback = callback;
     }
 
-    private void startQuestionTimer(int seconds) {
-        if (questionTimer != null) {
-            questionTimer.cancel();
+    /**
+     * Receives the distribution of smoothed client round-trip times, in
+     * milliseconds, after every keep-alive sweep.
+     */
+    public void setRttCallback(Consumer<LatencySketch> callback) {
+        this.rttCallback = callback;
+    }
+
+    /**
+     * Returns the response times recorded for one question, or null if the
+     * question has not been asked.
+     */
+    public LatencySketch getResponseTimes(int questionIndex) {
+        if (questionIndex < 0 || questionIndex >= responseTimeSketches.length) {
+            return null;
         }
+        return responseTimeSketches[questionIndex];
+    }
 
-        questionTimer = new Timer();
-        timeRemaining = seconds;
+    /**
+     * Returns the response times of every question asked so far, merged.
+     */
+    public LatencySketch getGameResponseTimes() {
+        return LatencySketch.merged(Arrays.asList(responseTimeSketches));
+    }
 
-        updateTimerDisplay();
-        broadcastTimer(timeRemaining);
+    /**
+     * Per-hop latency from question reveal to render on players' screens,
+     * and from answer click to scoring.
+     */
+    public HopLatencies getHopLatencies() {
+        return hops;
+    }
 
-        questionTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                timeRemaining--;
+    /**
+     * Time between the first and last client receiving each question, in
+     * microseconds.
+     */
+    public LatencySketch getRevealSkew() {
+        return fanout.getRevealSkew();
+    }
 
-                SwingUtilities.invokeLater(() -> {
-                    updateTimerDisplay();
-                    broadcastTimer(timeRemaining);
+    /**
+     * Sets the inbound rate limits for clients that join from now on.
+     */
+    public void setInboundLimits(InboundLimits limits) {
+        this.inboundLimits = limits;
+    }
 
-                    if (timeRemaining <= 0) {
-                        questionTimer.cancel();
-                        questionTimeUp();
-                    }
-                });
-            }
-        }, 1000, 1000);
+    /**
+     * Records the traffic of clients that join from now on into the given
+     * capture, or stops recording new clients if it is null. The caller
+     * closes the capture once the room has stopped.
+     */
+    public void setCapture(FrameCapture capture) {
+        this.capture = capture;
     }
 
-    public void broadcastTimer(int seconds) {
-        Message message = new Message(MessageType.TIMER);
-        message.setTimeRemaining(seconds);
+    /**
+     * Sets how long broadcast frames are gathered before being written; 0
+     * writes each as soon as it is queued.
+     */
+    public void setWriteTick(long millis) {
+        fanout.setTickMillis(millis);
+    }
 
-        synchronized (clients) {
-            for (ClientHandler handler : clients.values()) {
-                try {
-                    handler.sendMessage(message);
-                } catch (IOException e) {
-                    // Client will be removed when its handler detects the error
-                }
-            }
-        }
+    public String getRoomCode() {
+        return roomCode;
     }
 
-    private void updateTimerDisplay() {
-        // Implementation of updateTimerDisplay method
+    public Quiz getQuiz() {
+        return quiz;
     }
 
-    private void questionTimeUp() {
-        // Implementation of questionTimeUp method
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Number of connected players, without copying or sorting the list.
+     */
+    public int getPlayerCount() {
+        return clients.size();
+    }
+
+    public void broadcastTimer(int seconds) {
+        PooledBuffer frame = BufferPool.SHARED.acquire(FrameViews.TimerView.FRAME_SIZE);
+        FrameViews.TimerView.encode(frame.buffer(), seconds);
+        frame.buffer().flip();
+
+        fanout.broadcast(MessageType.TIMER, frame);
     }
-}
\ No newline at end of file
+}
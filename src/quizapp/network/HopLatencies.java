@@ -0,0 +1,83 @@
+package quizapp.network;
+
+import java.util.Locale;
+import quizapp.util.LatencySketch;
+import quizapp.util.MetricsRegistry;
+
+/**
+ * Where the time goes between a question being revealed and players seeing
+ * it, and between a player clicking an answer and the server handling it.
+ * One sketch per hop, in microseconds.
+ *
+ * Client-side hops are measured on the client and reported back in
+ * RENDER_ACK and ANSWER frames, so the two clocks are never compared. The
+ * wire hop for a reveal is what remains of the time from the QUESTION
+ * frame being written to its ack arriving once the client's own time is
+ * taken off, halved. For answers it is half the smoothed round-trip time.
+ */
+public class HopLatencies {
+
+    public enum Hop {
+        /** Encoding the QUESTION frame. */
+        ENCODE,
+        /** From the frame being encoded to it being written to a client's socket. */
+        QUEUE,
+        /** Network time to the client, from the round trip. */
+        WIRE,
+        /** Client decoding the frame. */
+        DECODE,
+        /** Client waiting for the event dispatch thread. */
+        EDT,
+        /** Client laying out and painting the question. */
+        RENDER,
+        /** From the reveal starting on the server to the question being on screen. */
+        REVEAL_TO_RENDER,
+        /** Client time from the click to the answer being sent. */
+        ANSWER_CLIENT,
+        /** Network time from the client, half the smoothed round trip. */
+        ANSWER_WIRE,
+        /** From the answer arriving to it being handed to scoring. */
+        ANSWER_SERVER
+    }
+
+    private static final Hop[] HOPS = Hop.values();
+
+    private final LatencySketch[] sketches = new LatencySketch[HOPS.length];
+
+    public HopLatencies() {
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = new LatencySketch();
+        }
+    }
+
+    public void record(Hop hop, long micros) {
+        sketches[hop.ordinal()].record(micros);
+    }
+
+    public LatencySketch get(Hop hop) {
+        return sketches[hop.ordinal()];
+    }
+
+    public void registerMetrics(MetricsRegistry registry, String... labels) {
+        for (Hop hop : HOPS) {
+            registry.histogram("quiz_hop_micros", "Latency of each hop from reveal to render and from click to scoring",
+                    sketches[hop.ordinal()], BroadcastFanout.withLabel(labels, "hop", hop.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    /**
+     * One line per hop with its median and 99th percentile, for logging.
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        for (Hop hop : HOPS) {
+            LatencySketch sketch = sketches[hop.ordinal()];
+            if (sketch.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format("%-17s p50 %7.2fms  p99 %7.2fms  (%d)%n", hop.name().toLowerCase(Locale.ROOT),
+                    sketch.quantile(0.5) / 1000.0, sketch.quantile(0.99) / 1000.0, sketch.getCount()));
+        }
+        return text.toString();
+    }
+}
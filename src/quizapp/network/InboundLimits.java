@@ -0,0 +1,60 @@
+package quizapp.network;
+
+/**
+ * Per-connection rate limits on inbound frames, one per message type, and
+ * what to do with a frame that exceeds its limit.
+ */
+public class InboundLimits {
+
+    public enum Policy {
+        /** Discard the frame without decoding it. */
+        DROP,
+        /** Stop reading from the client until a token is available. */
+        DELAY,
+        /** Close the connection. */
+        DISCONNECT
+    }
+
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final double[] perSecond = new double[TYPES.length];
+    private final int[] burst = new int[TYPES.length];
+    private final Policy[] policies = new Policy[TYPES.length];
+
+    /**
+     * Limits that leave room for a well-behaved client: one answer and one
+     * render ack per question, a keep-alive every few seconds plus echoes of
+     * ours, and the odd LEAVE.
+     */
+    public static InboundLimits defaults() {
+        InboundLimits limits = new InboundLimits();
+        for (MessageType type : TYPES) {
+            limits.set(type, 2, 5, Policy.DISCONNECT);
+        }
+        limits.set(MessageType.ANSWER, 2, 5, Policy.DROP);
+        limits.set(MessageType.KEEP_ALIVE, 5, 10, Policy.DROP);
+        limits.set(MessageType.RENDER_ACK, 2, 5, Policy.DROP);
+        return limits;
+    }
+
+    public void set(MessageType type, double framesPerSecond, int burstSize, Policy policy) {
+        perSecond[type.ordinal()] = framesPerSecond;
+        burst[type.ordinal()] = burstSize;
+        policies[type.ordinal()] = policy;
+    }
+
+    public Policy getPolicy(MessageType type) {
+        return policies[type.ordinal()];
+    }
+
+    /**
+     * Fresh buckets for one connection, indexed by message type ordinal.
+     */
+    public TokenBucket[] newBuckets() {
+        TokenBucket[] buckets = new TokenBucket[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            buckets[i] = new TokenBucket(perSecond[i], burst[i]);
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,152 @@
+package quizapp.network;
+
+/**
+ * Estimates how well one client's connection keeps up, and from that how
+ * often it should be sent non-critical updates (timer ticks, standings).
+ *
+ * Two signals are tracked:
+ * <ul>
+ *   <li>Write throughput: bytes per second of the gathering writes to the
+ *       client. Writes never block, but a batch that does not fit in the
+ *       socket buffer is finished by later writes; it counts as one write
+ *       lasting from the first attempt to the last byte, so it only takes
+ *       long when the link drains slower than we produce.</li>
+ *   <li>Queueing delay: smoothed round-trip time above the lowest one seen,
+ *       which is how long frames currently sit in buffers along the path
+ *       before the client gets them.</li>
+ * </ul>
+ * While either signal shows a backlog, non-critical frames are spaced out so
+ * that each conflated update has time to drain before the next. Healthy
+ * links are not throttled at all. Critical frames are never held back.
+ *
+ * Write samples come from the connection's broadcast writer and round-trip
+ * samples from its reader; the estimate itself may be read from any thread.
+ */
+public class LinkEstimator {
+
+    private static final long THROTTLE_THRESHOLD_NANOS = 50_000_000L; // below this, send at full rate
+    private static final long MAX_INTERVAL_NANOS = 2_000_000_000L;
+    private static final int WRITE_FACTOR = 4;
+    private static final int QUEUE_DELAY_FACTOR = 2;
+
+    private volatile long smoothedWriteNanos;
+    private volatile double bytesPerSecond = -1;
+    private volatile long minRttNanos = Long.MAX_VALUE;
+    private volatile long queueDelayNanos;
+    private volatile long intervalNanos;
+    private long lastNonCriticalNanos = System.nanoTime() - MAX_INTERVAL_NANOS;
+    // Writer thread only
+    private boolean stalled;
+    private long stalledSinceNanos;
+    private long stalledBytes;
+    private boolean reportedThrottled;
+
+    /**
+     * Records one write of the given size that took the given time.
+     */
+    public void recordWrite(long bytes, long writeNanos) {
+        writeNanos = Math.max(1, writeNanos);
+        smoothedWriteNanos = (7 * smoothedWriteNanos + writeNanos) / 8;
+        double rate = bytes * 1_000_000_000.0 / writeNanos;
+        bytesPerSecond = bytesPerSecond < 0 ? rate : (7 * bytesPerSecond + rate) / 8;
+        updateInterval();
+    }
+
+    /**
+     * Records a batch the socket buffer had no room for the rest of. Writer
+     * thread only.
+     */
+    public void writeStalled(long bytes, long startNanos) {
+        if (!stalled) {
+            stalled = true;
+            stalledSinceNanos = startNanos;
+            stalledBytes = bytes;
+        }
+    }
+
+    /**
+     * Records a batch written in full; if it had stalled, the whole batch
+     * is counted from its first attempt. Writer thread only.
+     */
+    public void writeFinished(long bytes, long startNanos, long nowNanos) {
+        if (stalled) {
+            stalled = false;
+            recordWrite(stalledBytes, nowNanos - stalledSinceNanos);
+        } else {
+            recordWrite(bytes, nowNanos - startNanos);
+        }
+    }
+
+    /**
+     * How long the connection has had a batch waiting for room in its
+     * socket buffer, or 0. Writer thread only.
+     */
+    public long getStalledNanos(long nowNanos) {
+        return stalled ? nowNanos - stalledSinceNanos : 0;
+    }
+
+    /**
+     * Records the client's current smoothed round-trip time.
+     */
+    public void recordRoundTrip(long rttNanos, long smoothedRttNanos) {
+        if (rttNanos > 0 && rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+        queueDelayNanos = Math.max(0, smoothedRttNanos - minRttNanos);
+        updateInterval();
+    }
+
+    private void updateInterval() {
+        long interval = Math.max(WRITE_FACTOR * smoothedWriteNanos, QUEUE_DELAY_FACTOR * queueDelayNanos);
+        intervalNanos = interval < THROTTLE_THRESHOLD_NANOS ? 0 : Math.min(interval, MAX_INTERVAL_NANOS);
+    }
+
+    /**
+     * Whether a non-critical frame may be written now. Writer thread only.
+     */
+    public boolean nonCriticalDue(long nowNanos) {
+        return nowNanos - lastNonCriticalNanos >= intervalNanos;
+    }
+
+    /**
+     * When the next non-critical frame may be written. Writer thread only.
+     */
+    public long nextNonCriticalNanos() {
+        return lastNonCriticalNanos + intervalNanos;
+    }
+
+    public void nonCriticalSent(long nowNanos) {
+        lastNonCriticalNanos = nowNanos;
+    }
+
+    /**
+     * Minimum time between non-critical frames, or 0 when unthrottled.
+     */
+    public long getUpdateIntervalMillis() {
+        return intervalNanos / 1_000_000;
+    }
+
+    public long getQueueDelayMillis() {
+        return queueDelayNanos / 1_000_000;
+    }
+
+    /**
+     * Smoothed write throughput, or -1 before the first write.
+     */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Returns true once each time the link starts or stops being throttled,
+     * so the change can be reported.
+     */
+    public synchronized boolean throttlingChanged() {
+        boolean throttled = intervalNanos > 0;
+        if (throttled == reportedThrottled) {
+            return false;
+        }
+        reportedThrottled = throttled;
+        return true;
+    }
+}
@@ -28,6 +28,15 @@ public class Message implements Serializable {
     // For timer
     private int timeRemaining;
 
+    // For keep-alive: sender's monotonic send time, echoed back to measure round trips
+    private long echoTimestamp;
+
+    // Question reveals, echoed back in RENDER_ACK
+    private long traceId;
+
+    // For time up: how many players chose each option
+    private int[] answerCounts;
+
     // For results
     private List<Player> playerResults;
 
@@ -112,6 +121,30 @@ public class Message implements Serializable {
         this.timeRemaining = timeRemaining;
     }
 
+    public long getEchoTimestamp() {
+        return echoTimestamp;
+    }
+
+    public void setEchoTimestamp(long echoTimestamp) {
+        this.echoTimestamp = echoTimestamp;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(long traceId) {
+        this.traceId = traceId;
+    }
+
+    public int[] getAnswerCounts() {
+        return answerCounts;
+    }
+
+    public void setAnswerCounts(int[] answerCounts) {
+        this.answerCounts = answerCounts;
+    }
+
     public List<Player> getPlayerResults() {
         return playerResults;
     }
@@ -0,0 +1,312 @@
+package quizapp.network;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import quizapp.model.Player;
+import quizapp.model.Question;
+
+/**
+ * Binary wire format for {@link Message}.
+ *
+ * A frame is a 4-byte length (of everything after it), a 1-byte message type
+ * and the fields that type uses. Strings are a 4-byte UTF-8 byte length
+ * followed by the bytes, with -1 for null. Frames are encoded straight into
+ * pooled direct buffers, so sending a message does not go through an
+ * intermediate byte array.
+ */
+public final class MessageCodec {
+
+    public static final int HEADER_SIZE = 4;
+    public static final int MAX_FRAME_SIZE = 1024 * 1024;
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final ThreadLocal<byte[]> STRING_SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Encodes a message into a buffer borrowed from the pool, flipped and
+     * ready to write. The caller owns the returned reference.
+     */
+    public static PooledBuffer encode(Message message, BufferPool pool) {
+        PooledBuffer pooled = pool.acquire(sizeBound(message));
+        ByteBuffer buffer = pooled.buffer();
+        buffer.putInt(0);
+        buffer.put((byte) message.getType().ordinal());
+
+        switch (message.getType()) {
+            case JOIN:
+                putString(buffer, message.getPlayerName());
+                putString(buffer, message.getRoomCode());
+                break;
+            case JOIN_FAILED:
+                putString(buffer, message.getErrorMessage());
+                break;
+            case KEEP_ALIVE:
+                buffer.putLong(message.getEchoTimestamp());
+                break;
+            case QUESTION:
+                putQuestion(buffer, message.getQuestion());
+                buffer.putInt(message.getQuestionNumber());
+                buffer.putInt(message.getTotalQuestions());
+                buffer.putLong(message.getTraceId());
+                break;
+            case ANSWER:
+                buffer.putInt(message.getQuestionNumber());
+                buffer.putInt(message.getAnswerIndex());
+                buffer.putInt(0); // time from click to send, not known here
+                break;
+            case TIMER:
+                buffer.putInt(message.getTimeRemaining());
+                break;
+            case TIME_UP:
+                putInts(buffer, message.getAnswerCounts());
+                break;
+            case SCORE_UPDATE:
+            case RESULTS:
+                putPlayers(buffer, message.getPlayerResults());
+                break;
+            default:
+                break;
+        }
+
+        buffer.putInt(0, buffer.position() - HEADER_SIZE);
+        buffer.flip();
+        return pooled;
+    }
+
+    /**
+     * Decodes one frame body. The buffer must be positioned at the type byte
+     * with its limit at the end of the frame.
+     */
+    public static Message decode(ByteBuffer frame) throws IOException {
+        try {
+            int typeIndex = frame.get() & 0xFF;
+            if (typeIndex >= TYPES.length) {
+                throw new IOException("Unknown message type " + typeIndex);
+            }
+            Message message = new Message(TYPES[typeIndex]);
+
+            switch (message.getType()) {
+                case JOIN:
+                    message.setPlayerName(getString(frame));
+                    message.setRoomCode(getString(frame));
+                    break;
+                case JOIN_FAILED:
+                    message.setErrorMessage(getString(frame));
+                    break;
+                case KEEP_ALIVE:
+                    message.setEchoTimestamp(frame.getLong());
+                    break;
+                case QUESTION:
+                    message.setQuestion(getQuestion(frame));
+                    message.setQuestionNumber(frame.getInt());
+                    message.setTotalQuestions(frame.getInt());
+                    message.setTraceId(frame.getLong());
+                    break;
+                case ANSWER:
+                    message.setQuestionNumber(frame.getInt());
+                    message.setAnswerIndex(frame.getInt());
+                    break;
+                case TIMER:
+                    message.setTimeRemaining(frame.getInt());
+                    break;
+                case TIME_UP:
+                    message.setAnswerCounts(getInts(frame));
+                    break;
+                case SCORE_UPDATE:
+                case RESULTS:
+                    message.setPlayerResults(getPlayers(frame));
+                    break;
+                default:
+                    break;
+            }
+            return message;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed frame", e);
+        }
+    }
+
+    /**
+     * Upper bound on the encoded size of a message, so the right size class
+     * can be borrowed before encoding.
+     */
+    private static int sizeBound(Message message) {
+        int size = HEADER_SIZE + 1 + 16;
+        switch (message.getType()) {
+            case JOIN:
+                size += stringBound(message.getPlayerName()) + stringBound(message.getRoomCode());
+                break;
+            case JOIN_FAILED:
+                size += stringBound(message.getErrorMessage());
+                break;
+            case QUESTION:
+                Question question = message.getQuestion();
+                size += 20 + stringBound(question.getText());
+                for (String option : question.getOptions()) {
+                    size += stringBound(option);
+                }
+                break;
+            case TIME_UP:
+                int[] counts = message.getAnswerCounts();
+                size += 4 + (counts == null ? 0 : counts.length * 4);
+                break;
+            case SCORE_UPDATE:
+            case RESULTS:
+                List<Player> players = message.getPlayerResults();
+                if (players != null) {
+                    for (Player player : players) {
+                        size += stringBound(player.getName()) + 8;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return size;
+    }
+
+    private static int stringBound(String value) {
+        return 4 + (value == null ? 0 : value.length() * 3);
+    }
+
+    /**
+     * Writes UTF-8 directly into the buffer, one char at a time, so no
+     * intermediate byte array is created.
+     */
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int start = buffer.position();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.putInt(lengthPosition, buffer.position() - start);
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IOException("String length " + length + " exceeds frame");
+        }
+        byte[] scratch = STRING_SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+            STRING_SCRATCH.set(scratch);
+        }
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        if (values == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(values.length);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+    }
+
+    private static int[] getInts(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining() / 4) {
+            throw new IOException("Array length " + length + " exceeds frame");
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    private static void putQuestion(ByteBuffer buffer, Question question) {
+        putString(buffer, question.getText());
+        String[] options = question.getOptions();
+        buffer.putInt(options.length);
+        for (String option : options) {
+            putString(buffer, option);
+        }
+        buffer.putInt(question.getCorrectAnswerIndex());
+        buffer.putInt(question.getTimeLimit());
+    }
+
+    private static Question getQuestion(ByteBuffer buffer) throws IOException {
+        String text = getString(buffer);
+        int optionCount = buffer.getInt();
+        if (optionCount < 0 || optionCount > buffer.remaining() / 4) {
+            throw new IOException("Option count " + optionCount + " exceeds frame");
+        }
+        String[] options = new String[optionCount];
+        for (int i = 0; i < optionCount; i++) {
+            options[i] = getString(buffer);
+        }
+        int correctAnswerIndex = buffer.getInt();
+        int timeLimit = buffer.getInt();
+        return new Question(text, options, correctAnswerIndex, timeLimit);
+    }
+
+    private static void putPlayers(ByteBuffer buffer, List<Player> players) {
+        if (players == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(players.size());
+        for (Player player : players) {
+            putString(buffer, player.getName());
+            buffer.putInt(player.getCorrectAnswers());
+            buffer.putInt(player.getScore());
+        }
+    }
+
+    private static List<Player> getPlayers(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        if (count > buffer.remaining() / 12) {
+            throw new IOException("Player count " + count + " exceeds frame");
+        }
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Player player = new Player(getString(buffer));
+            player.setCorrectAnswers(buffer.getInt());
+            player.setScore(buffer.getInt());
+            players.add(player);
+        }
+        return players;
+    }
+}
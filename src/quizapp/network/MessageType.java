@@ -18,5 +18,8 @@ public enum MessageType {
     TIMER,
     TIME_UP,
     SCORE_UPDATE,
-    RESULTS
+    RESULTS,
+
+    // Tracing
+    RENDER_ACK
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package quizapp.network;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Frames waiting to be written to one client.
+ *
+ * Frames are sorted into lanes by type. QUESTION, TIME_UP and RESULTS go in
+ * the critical lane and are always written first, in order. TIMER and
+ * SCORE_UPDATE carry state that a newer frame makes obsolete, so each has a
+ * single conflation slot: a newer frame replaces an unsent older one in
+ * place. Anything else goes in the bulk lane, written last. A client that
+ * falls behind therefore never works through a backlog of stale countdowns
+ * and standings before it sees the next question.
+ *
+ * Frames the writer took but could not finish because the client's socket
+ * buffer was full are handed back with {@link #requeue} and written before
+ * anything else, starting where the last write stopped.
+ *
+ * The queue holds one reference to every frame in it.
+ */
+public class OutboundQueue {
+
+    private static final int TIMER_SLOT = 0;
+    private static final int STANDINGS_SLOT = 1;
+
+    private final ArrayDeque<PooledBuffer> critical = new ArrayDeque<>();
+    private final PooledBuffer[] conflated = new PooledBuffer[2];
+    private final ArrayDeque<PooledBuffer> bulk = new ArrayDeque<>();
+    private final ArrayDeque<PooledBuffer> unsent = new ArrayDeque<>();
+    private int unsentOffset;
+    private boolean closed;
+
+    /**
+     * Queues a frame, taking over the caller's reference. Returns the number
+     * of queued frames that the new one superseded, or -1 if the queue has
+     * been closed and the frame was released instead.
+     */
+    public synchronized int offer(MessageType type, PooledBuffer frame) {
+        if (closed) {
+            frame.release();
+            return -1;
+        }
+        switch (type) {
+            case QUESTION:
+            case TIME_UP:
+                // The countdown of the previous phase is no longer worth showing
+                critical.add(frame);
+                return drop(TIMER_SLOT);
+            case RESULTS:
+                critical.add(frame);
+                return drop(TIMER_SLOT) + drop(STANDINGS_SLOT);
+            case TIMER:
+                return replace(TIMER_SLOT, frame);
+            case SCORE_UPDATE:
+                return replace(STANDINGS_SLOT, frame);
+            default:
+                bulk.add(frame);
+                return 0;
+        }
+    }
+
+    /**
+     * Whether frames of this type go in the critical lane.
+     */
+    public static boolean isCritical(MessageType type) {
+        return type == MessageType.QUESTION || type == MessageType.TIME_UP || type == MessageType.RESULTS;
+    }
+
+    private int replace(int slot, PooledBuffer frame) {
+        int dropped = drop(slot);
+        conflated[slot] = frame;
+        return dropped;
+    }
+
+    private int drop(int slot) {
+        PooledBuffer previous = conflated[slot];
+        if (previous == null) {
+            return 0;
+        }
+        conflated[slot] = null;
+        previous.release();
+        return 1;
+    }
+
+    /**
+     * Takes the next frame to write, or null if there is none. The caller
+     * takes over the queue's reference.
+     */
+    public PooledBuffer poll() {
+        return poll(true);
+    }
+
+    /**
+     * Takes the next frame to write, leaving TIMER and standings frames in
+     * their slots unless includeConflated is set, e.g. while the client's
+     * update rate is being limited.
+     */
+    public synchronized PooledBuffer poll(boolean includeConflated) {
+        PooledBuffer frame = critical.poll();
+        if (frame != null) {
+            return frame;
+        }
+        if (includeConflated) {
+            for (int slot = 0; slot < conflated.length; slot++) {
+                frame = conflated[slot];
+                if (frame != null) {
+                    conflated[slot] = null;
+                    return frame;
+                }
+            }
+        }
+        return bulk.poll();
+    }
+
+    /**
+     * Hands back frames that were taken but not completely written, in
+     * order; the first has been written up to the given offset. Returns
+     * false, keeping the caller's references, if the queue has been closed.
+     */
+    public synchronized boolean requeue(PooledBuffer[] frames, int from, int to, int offset) {
+        if (closed) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            unsent.add(frames[i]);
+        }
+        unsentOffset = offset;
+        return true;
+    }
+
+    public synchronized boolean hasUnsent() {
+        return !unsent.isEmpty();
+    }
+
+    /**
+     * How much of the first unsent frame has been written already.
+     */
+    public synchronized int getUnsentOffset() {
+        return unsentOffset;
+    }
+
+    /**
+     * Takes the next frame that was handed back unfinished, or null if
+     * there is none.
+     */
+    public synchronized PooledBuffer pollUnsent() {
+        return unsent.poll();
+    }
+
+    public synchronized boolean hasConflated() {
+        return conflated[TIMER_SLOT] != null || conflated[STANDINGS_SLOT] != null;
+    }
+
+    public synchronized boolean isEmpty() {
+        return unsent.isEmpty() && critical.isEmpty() && bulk.isEmpty()
+                && conflated[TIMER_SLOT] == null && conflated[STANDINGS_SLOT] == null;
+    }
+
+    /**
+     * Releases every queued frame and stops accepting new ones. Each frame is
+     * passed to the callback just before it is released.
+     */
+    public synchronized void close(Consumer<PooledBuffer> onDiscard) {
+        closed = true;
+        PooledBuffer frame;
+        while ((frame = unsent.poll()) != null || (frame = poll()) != null) {
+            onDiscard.accept(frame);
+            frame.release();
+        }
+    }
+}
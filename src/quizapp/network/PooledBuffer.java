@@ -0,0 +1,79 @@
+package quizapp.network;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A direct buffer borrowed from a {@link BufferPool}, with a reference count
+ * so one encoded frame can be handed to several connections. The buffer goes
+ * back to the pool when the last holder releases it.
+ */
+public final class PooledBuffer {
+
+    private final ByteBuffer buffer;
+    private final BufferPool pool;
+    private final int sizeClass;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private ByteBuffer[] views = new ByteBuffer[0];
+
+    PooledBuffer(ByteBuffer buffer, BufferPool pool, int sizeClass) {
+        this.buffer = buffer;
+        this.pool = pool;
+        this.sizeClass = sizeClass;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns a view of the frame with its own position, for one of several
+     * threads writing the same frame at once. Views are kept with the buffer
+     * and reused after it returns to the pool.
+     */
+    public ByteBuffer view(int index) {
+        ByteBuffer view;
+        synchronized (this) {
+            if (index >= views.length) {
+                views = Arrays.copyOf(views, index + 1);
+            }
+            view = views[index];
+            if (view == null) {
+                view = buffer.duplicate();
+                views[index] = view;
+            }
+        }
+        view.limit(buffer.limit());
+        view.position(0);
+        return view;
+    }
+
+    /**
+     * Adds a holder. Each call must be matched by a release.
+     */
+    public PooledBuffer retain() {
+        if (refCount.getAndIncrement() <= 0) {
+            throw new IllegalStateException("Buffer already released");
+        }
+        return this;
+    }
+
+    public void release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining == 0) {
+            pool.recycle(this);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Buffer released too many times");
+        }
+    }
+
+    int sizeClass() {
+        return sizeClass;
+    }
+
+    void reuse() {
+        buffer.clear();
+        refCount.set(1);
+    }
+}
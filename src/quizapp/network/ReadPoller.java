@@ -0,0 +1,90 @@
+package quizapp.network;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.LockSupport;
+import quizapp.util.Log;
+
+/**
+ * Lets threads that each read one non-blocking channel wait for it to
+ * become readable, with one selector shared by every connection instead of
+ * one per connection.
+ *
+ * A reader whose read came back empty arms its key and parks. The poller
+ * thread disarms the key and unparks the reader once the channel is
+ * readable, and the reader reads again. Keys are disarmed while their
+ * reader is busy, so the poller only wakes for readers that are waiting.
+ * Closing a channel cancels its key, so whoever closes it must unpark the
+ * reader as well.
+ */
+final class ReadPoller {
+
+    static final ReadPoller SHARED = start();
+
+    private static final Log LOG = Log.get(ReadPoller.class);
+
+    private final Selector selector;
+    private final Thread thread;
+
+    private ReadPoller(Selector selector) {
+        this.selector = selector;
+        this.thread = new Thread(this::run, "read-poller");
+        this.thread.setDaemon(true);
+    }
+
+    private static ReadPoller start() {
+        try {
+            ReadPoller poller = new ReadPoller(Selector.open());
+            poller.thread.start();
+            return poller;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registers a channel for the given thread to wait on; the returned key
+     * starts disarmed.
+     */
+    SelectionKey register(SocketChannel channel, Thread reader) throws ClosedChannelException {
+        return channel.register(selector, 0, reader);
+    }
+
+    /**
+     * Parks the calling thread until its channel may be readable. It can
+     * also return early, so the caller reads again either way.
+     */
+    void await(SelectionKey key) throws ClosedChannelException {
+        try {
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (CancelledKeyException e) {
+            throw new ClosedChannelException();
+        }
+        // Interest changes only take effect when the selector next wakes
+        selector.wakeup();
+        LockSupport.park(this);
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                selector.select(key -> {
+                    try {
+                        key.interestOps(0);
+                    } catch (CancelledKeyException e) {
+                        // Closed; whoever closed it woke the reader
+                        return;
+                    }
+                    LockSupport.unpark((Thread) key.attachment());
+                });
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Error polling client reads", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package quizapp.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import quizapp.model.Player;
+import quizapp.model.Question;
+import quizapp.model.Quiz;
+import quizapp.util.Log;
+
+/**
+ * Persists room state so a room can be rebuilt after the host process dies.
+ * State is kept as a periodic snapshot plus a write-ahead log of the changes
+ * made since that snapshot. Log records carry absolute values, so replaying
+ * a record that is already part of the snapshot is harmless.
+ *
+ * Records are logged from the scoring threads, so logging one only queues
+ * it without a lock; the queue is written to the log file in order on the
+ * next flush.
+ */
+public class RoomStateStore {
+
+    private static final String RECOVERY_DIRECTORY = "recovery/";
+    private static final int SNAPSHOT_MAGIC = 0x51534E50; // "QSNP"
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private static final byte RECORD_JOIN = 1;
+    private static final byte RECORD_SCORE = 2;
+    private static final byte RECORD_QUESTION = 3;
+    private static final Log LOG = Log.get(RoomStateStore.class);
+
+    private final String roomCode;
+    private final File snapshotFile;
+    private final File walFile;
+    private DataOutputStream walOut;
+    private volatile boolean discarded;
+    private final ConcurrentLinkedQueue<Record> pending = new ConcurrentLinkedQueue<>();
+
+    private static final class Record {
+        final byte type;
+        final String playerName;
+        final int value;
+        final int secondValue;
+
+        Record(byte type, String playerName, int value, int secondValue) {
+            this.type = type;
+            this.playerName = playerName;
+            this.value = value;
+            this.secondValue = secondValue;
+        }
+    }
+
+    /**
+     * Room state read back from disk.
+     */
+    public static class RecoveredRoom {
+        private final Quiz quiz;
+        private final Map<String, Player> players;
+        private final long recoveryMillis;
+
+        RecoveredRoom(Quiz quiz, Map<String, Player> players, long recoveryMillis) {
+            this.quiz = quiz;
+            this.players = players;
+            this.recoveryMillis = recoveryMillis;
+        }
+
+        public Quiz getQuiz() {
+            return quiz;
+        }
+
+        public Map<String, Player> getPlayers() {
+            return players;
+        }
+
+        public long getRecoveryMillis() {
+            return recoveryMillis;
+        }
+    }
+
+    public RoomStateStore(String roomCode) {
+        this.roomCode = roomCode;
+        this.snapshotFile = new File(RECOVERY_DIRECTORY + roomCode + ".snap");
+        this.walFile = new File(RECOVERY_DIRECTORY + roomCode + ".wal");
+    }
+
+    /**
+     * Returns the room codes that have state left behind by an interrupted game.
+     */
+    public static List<String> findRecoverableRooms() {
+        List<String> rooms = new ArrayList<>();
+        File[] files = new File(RECOVERY_DIRECTORY).listFiles((dir, name) -> name.endsWith(".snap"));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                rooms.add(name.substring(0, name.length() - ".snap".length()));
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Writes a full snapshot of the room and starts a fresh write-ahead log.
+     * The snapshot is written to a temporary file and moved into place, so a
+     * crash while snapshotting leaves the previous snapshot and log intact.
+     *
+     * The players are read under the store's lock, after every record
+     * already written to the old log, so the snapshot covers those records.
+     * Records still queued are kept for the new log.
+     */
+    public synchronized void writeSnapshot(Quiz quiz, Supplier<List<Player>> playerSource) throws IOException {
+        if (discarded) {
+            return;
+        }
+        int questionIndex = quiz.currentQuestionIndex;
+        List<Player> players = playerSource.get();
+        File directory = new File(RECOVERY_DIRECTORY);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(RECOVERY_DIRECTORY + roomCode + ".snap.tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeUTF(roomCode);
+            out.writeUTF(quiz.getName() != null ? quiz.getName() : "");
+            out.writeInt(questionIndex);
+
+            List<Question> questions = quiz.getQuestions();
+            out.writeInt(questions.size());
+            for (Question question : questions) {
+                out.writeUTF(question.getText());
+                String[] options = question.getOptions();
+                out.writeByte(options.length);
+                for (String option : options) {
+                    out.writeUTF(option != null ? option : "");
+                }
+                out.writeByte(question.getCorrectAnswerIndex());
+                out.writeInt(question.getTimeLimit());
+            }
+
+            out.writeInt(players.size());
+            for (Player player : players) {
+                out.writeUTF(player.getName());
+                out.writeInt(player.getCorrectAnswers());
+                out.writeInt(player.getScore());
+            }
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Everything written to the log so far is now part of the snapshot
+        if (walOut != null) {
+            walOut.close();
+        }
+        walOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(walFile, false)));
+    }
+
+    public void logJoin(String playerName) {
+        appendRecord(RECORD_JOIN, playerName, 0, 0);
+    }
+
+    public void logScore(String playerName, int correctAnswers, int score) {
+        appendRecord(RECORD_SCORE, playerName, correctAnswers, score);
+    }
+
+    public void logQuestion(int questionIndex) {
+        appendRecord(RECORD_QUESTION, "", questionIndex, 0);
+    }
+
+    private void appendRecord(byte type, String playerName, int value, int secondValue) {
+        if (!discarded) {
+            pending.add(new Record(type, playerName, value, secondValue));
+        }
+    }
+
+    /**
+     * Writes the queued records to the log file and pushes them to disk.
+     * Records are not flushed one by one, so the server calls this on a
+     * short interval instead.
+     */
+    public synchronized void flush() {
+        try {
+            writePending();
+            if (walOut != null) {
+                walOut.flush();
+            }
+        } catch (IOException e) {
+            LOG.error("Error flushing recovery log", "room", roomCode, "reason", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves queued records into the log stream. Before the first snapshot
+     * there is no log to write to, and they are dropped.
+     */
+    private void writePending() throws IOException {
+        Record record;
+        while ((record = pending.poll()) != null) {
+            if (walOut != null) {
+                walOut.writeByte(record.type);
+                walOut.writeUTF(record.playerName);
+                walOut.writeInt(record.value);
+                walOut.writeInt(record.secondValue);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the room from the latest snapshot and the log written after it.
+     * Returns null if there is no usable snapshot for this room. A snapshot
+     * in a format this version does not know is discarded.
+     */
+    public RecoveredRoom load() {
+        long start = System.nanoTime();
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+
+        Quiz quiz = new Quiz();
+        Map<String, Player> players = new LinkedHashMap<>();
+        boolean unrecognised = false;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotFile), 64 * 1024))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                unrecognised = true;
+                return null;
+            }
+            quiz.roomCode = in.readUTF();
+            String name = in.readUTF();
+            quiz.setName(name.isEmpty() ? null : name);
+            quiz.currentQuestionIndex = in.readInt();
+
+            int questionCount = in.readInt();
+            List<Question> questions = new ArrayList<>(questionCount);
+            for (int i = 0; i < questionCount; i++) {
+                String text = in.readUTF();
+                String[] options = new String[in.readByte()];
+                for (int j = 0; j < options.length; j++) {
+                    options[j] = in.readUTF();
+                }
+                int correctAnswerIndex = in.readByte();
+                int timeLimit = in.readInt();
+                questions.add(new Question(text, options, correctAnswerIndex, timeLimit));
+            }
+            quiz.setQuestions(questions);
+
+            int playerCount = in.readInt();
+            for (int i = 0; i < playerCount; i++) {
+                Player player = new Player(in.readUTF());
+                player.setCorrectAnswers(in.readInt());
+                player.setScore(in.readInt());
+                players.put(player.getName(), player);
+            }
+        } catch (IOException e) {
+            LOG.error("Error reading snapshot", "room", roomCode, "reason", e.getMessage());
+            return null;
+        } finally {
+            // Nothing in this build can read it, so it would otherwise be
+            // offered for recovery on every start
+            if (unrecognised) {
+                LOG.warn("Unrecognised snapshot format, discarding it", "room", roomCode);
+                discard();
+            }
+        }
+
+        replayLog(quiz, players);
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new RecoveredRoom(quiz, players, elapsed);
+    }
+
+    private void replayLog(Quiz quiz, Map<String, Player> players) {
+        if (!walFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(walFile), 64 * 1024))) {
+            while (true) {
+                byte type;
+                String playerName;
+                int value;
+                int secondValue;
+                try {
+                    type = in.readByte();
+                    playerName = in.readUTF();
+                    value = in.readInt();
+                    secondValue = in.readInt();
+                } catch (EOFException e) {
+                    // End of log, or a record torn by the crash
+                    break;
+                }
+
+                switch (type) {
+                    case RECORD_JOIN:
+                        players.computeIfAbsent(playerName, Player::new);
+                        break;
+                    case RECORD_SCORE:
+                        Player player = players.computeIfAbsent(playerName, Player::new);
+                        player.setCorrectAnswers(value);
+                        player.setScore(secondValue);
+                        break;
+                    case RECORD_QUESTION:
+                        quiz.currentQuestionIndex = value;
+                        break;
+                    default:
+                        LOG.warn("Unknown recovery log record, stopping replay", "room", roomCode, "record", type);
+                        return;
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Error replaying recovery log", "room", roomCode, "reason", e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            writePending();
+            if (walOut != null) {
+                walOut.close();
+                walOut = null;
+            }
+        } catch (IOException e) {
+            LOG.error("Error closing recovery log", "room", roomCode, "reason", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the persisted state once the game has ended normally.
+     */
+    public synchronized void discard() {
+        discarded = true;
+        pending.clear();
+        close();
+        snapshotFile.delete();
+        walFile.delete();
+    }
+}
@@ -0,0 +1,265 @@
+package quizapp.network;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import quizapp.model.Player;
+import quizapp.util.Log;
+
+/**
+ * Spreads answer scoring across cores. Players are partitioned by slot into
+ * shards; each shard is owned by a single worker thread, which is the only
+ * thread that touches the shard's members and scores. At question close every
+ * shard sorts its own players and the sorted runs are merged pairwise on the
+ * fork-join pool into the global ranking.
+ *
+ * Slots go to shards in blocks of {@link #PLAYERS_PER_SHARD}, and a shard's
+ * worker is only started when its first player is added, so a room runs as
+ * many workers as its population needs, up to the shard count.
+ */
+public class ScoringShards {
+
+    static final int PLAYERS_PER_SHARD = 256;
+    private static final Log LOG = Log.get(ScoringShards.class);
+
+    /**
+     * Applies one answer to a player's score. Called on the shard's worker.
+     */
+    @FunctionalInterface
+    public interface AnswerScorer {
+        void score(Player player, int questionIndex, int answerIndex, long responseMillis);
+    }
+
+    public static final Comparator<Player> RANKING = (p1, p2) -> {
+        int scoreCompare = Integer.compare(p2.getScore(), p1.getScore());
+        if (scoreCompare != 0) {
+            return scoreCompare;
+        }
+        int correctCompare = Integer.compare(p2.getCorrectAnswers(), p1.getCorrectAnswers());
+        if (correctCompare != 0) {
+            return correctCompare;
+        }
+        return p1.getName().compareTo(p2.getName());
+    };
+
+    private final Shard[] shards;
+    private final AnswerScorer scorer;
+    private final AtomicLong answersSubmitted = new AtomicLong();
+    private volatile boolean stopped;
+    private volatile long firstAnswerNanos;
+    private volatile double lastIngestionRate;
+
+    private class Shard implements Runnable {
+        private final int index;
+        private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        private final List<Player> members = new ArrayList<>();
+        private volatile boolean running = true;
+        private volatile boolean started;
+        private long lastProcessedNanos;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    queue.take().run();
+                } catch (InterruptedException e) {
+                    break;
+                } catch (RuntimeException e) {
+                    LOG.error("Error in scoring shard", e);
+                }
+            }
+        }
+
+        void submit(Runnable task) {
+            queue.add(task);
+        }
+
+        synchronized void start() {
+            if (started || stopped) {
+                return;
+            }
+            Thread worker = new Thread(this, "scoring-shard-" + index);
+            worker.setDaemon(true);
+            worker.start();
+            started = true;
+        }
+    }
+
+    public ScoringShards(int shardCount, AnswerScorer scorer) {
+        this.scorer = scorer;
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    private Shard shardFor(Player player) {
+        return shards[Math.floorMod(Math.floorDiv(player.getSlot(), PLAYERS_PER_SHARD), shards.length)];
+    }
+
+    public void addPlayer(Player player) {
+        Shard shard = shardFor(player);
+        shard.start();
+        shard.submit(() -> shard.members.add(player));
+    }
+
+    public void removePlayer(Player player) {
+        Shard shard = shardFor(player);
+        shard.submit(() -> shard.members.removeIf(p -> p == player));
+    }
+
+    /**
+     * Queues an answer for scoring on the player's shard and returns at once.
+     */
+    public void submit(Player player, int questionIndex, int answerIndex, long responseMillis) {
+        if (answersSubmitted.getAndIncrement() == 0) {
+            firstAnswerNanos = System.nanoTime();
+        }
+        Shard shard = shardFor(player);
+        shard.submit(() -> {
+            scorer.score(player, questionIndex, answerIndex, responseMillis);
+            shard.lastProcessedNanos = System.nanoTime();
+        });
+    }
+
+    /**
+     * Returns snapshots of all players in ranking order once every answer
+     * queued so far has been scored, without waiting for that. Also records
+     * the ingestion rate for the question that just closed.
+     */
+    public CompletableFuture<List<Player>> closeQuestion() {
+        List<CompletableFuture<List<Player>>> sortedRuns = new ArrayList<>(shards.length);
+        long[] lastProcessed = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            if (!shard.started) {
+                // Never had a player, so there is nothing to rank
+                continue;
+            }
+            CompletableFuture<List<Player>> run = new CompletableFuture<>();
+            final int index = i;
+            shard.submit(() -> {
+                // Snapshots, so the ranking stays put once the next
+                // question's answers start changing scores
+                List<Player> sorted = new ArrayList<>(shard.members.size());
+                for (Player player : shard.members) {
+                    sorted.add(player.snapshot());
+                }
+                sorted.sort(RANKING);
+                lastProcessed[index] = shard.lastProcessedNanos;
+                run.complete(sorted);
+            });
+            sortedRuns.add(run);
+        }
+
+        long answers = answersSubmitted.getAndSet(0);
+        long firstAnswer = firstAnswerNanos;
+        return CompletableFuture.allOf(sortedRuns.toArray(new CompletableFuture<?>[0])).thenApplyAsync(done -> {
+            List<List<Player>> runs = new ArrayList<>(shards.length);
+            for (CompletableFuture<List<Player>> run : sortedRuns) {
+                runs.add(run.join());
+            }
+
+            if (answers > 0) {
+                long last = 0;
+                for (long nanos : lastProcessed) {
+                    last = Math.max(last, nanos);
+                }
+                long elapsed = Math.max(1, last - firstAnswer);
+                lastIngestionRate = answers * 1_000_000_000.0 / elapsed;
+            }
+
+            return new MergeTask(runs, 0, runs.size()).invoke();
+        }, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Answers scored per second over the last closed question, measured from
+     * the first answer received to the last one scored.
+     */
+    public double getLastIngestionRate() {
+        return lastIngestionRate;
+    }
+
+    /**
+     * Stops the workers once they have scored everything queued so far. The
+     * returned future completes when every shard has caught up and stopped.
+     */
+    public CompletableFuture<Void> shutdown() {
+        stopped = true;
+        List<CompletableFuture<Void>> stoppedShards = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            // Waits out a start under way; no shard starts after this
+            synchronized (shard) {
+                if (!shard.started) {
+                    continue;
+                }
+            }
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            shard.submit(() -> {
+                shard.running = false;
+                done.complete(null);
+            });
+            stoppedShards.add(done);
+        }
+        return CompletableFuture.allOf(stoppedShards.toArray(new CompletableFuture<?>[0]));
+    }
+
+    // Never serialized; RecursiveTask is Serializable only by inheritance
+    @SuppressWarnings("serial")
+    private static class MergeTask extends RecursiveTask<List<Player>> {
+        private final List<List<Player>> runs;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<List<Player>> runs, int from, int to) {
+            this.runs = runs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Player> compute() {
+            if (to - from == 0) {
+                return new ArrayList<>();
+            }
+            if (to - from == 1) {
+                return runs.get(from);
+            }
+            int middle = (from + to) >>> 1;
+            MergeTask left = new MergeTask(runs, from, middle);
+            left.fork();
+            List<Player> right = new MergeTask(runs, middle, to).compute();
+            return merge(left.join(), right);
+        }
+
+        private static List<Player> merge(List<Player> a, List<Player> b) {
+            List<Player> merged = new ArrayList<>(a.size() + b.size());
+            int i = 0;
+            int j = 0;
+            while (i < a.size() && j < b.size()) {
+                if (RANKING.compare(a.get(i), b.get(j)) <= 0) {
+                    merged.add(a.get(i++));
+                } else {
+                    merged.add(b.get(j++));
+                }
+            }
+            while (i < a.size()) {
+                merged.add(a.get(i++));
+            }
+            while (j < b.size()) {
+                merged.add(b.get(j++));
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package quizapp.network;
+
+/**
+ * Token bucket kept as a single "theoretical arrival time" (the generic cell
+ * rate algorithm), so taking a token is a couple of long comparisons with no
+ * refill loop and no allocation. Not thread-safe; each bucket belongs to one
+ * connection's reader.
+ */
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private long theoreticalArrival;
+
+    /**
+     * @param perSecond sustained rate
+     * @param burst     tokens that may be taken at once after a quiet spell
+     */
+    public TokenBucket(double perSecond, int burst) {
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = nanosPerToken * Math.max(0, burst - 1);
+        this.theoreticalArrival = System.nanoTime() - burstNanos;
+    }
+
+    /**
+     * Takes a token if one is available.
+     */
+    public boolean tryAcquire(long nowNanos) {
+        long arrival = Math.max(theoreticalArrival, nowNanos);
+        if (arrival - burstNanos > nowNanos) {
+            return false;
+        }
+        theoreticalArrival = arrival + nanosPerToken;
+        return true;
+    }
+
+    /**
+     * How long until a token will be available, 0 if one is now.
+     */
+    public long nanosUntilAvailable(long nowNanos) {
+        return Math.max(0, Math.max(theoreticalArrival, nowNanos) - burstNanos - nowNanos);
+    }
+}
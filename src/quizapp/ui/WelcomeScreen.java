@@ -89,6 +89,11 @@ public class WelcomeScreen extends JFrame {
     }
     
     private void openHostScreen() {
+        if (HostSetupScreen.resumeInterruptedQuiz(this)) {
+            dispose();
+            return;
+        }
+
         HostSetupScreen hostScreen = new HostSetupScreen();
         hostScreen.setVisible(true);
         dispose();
@@ -5,37 +5,52 @@ import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
 import quizapp.model.Player;
 import quizapp.model.Question;
 import quizapp.model.Quiz;
+import quizapp.network.GameListener;
 import quizapp.network.GameServer;
 import quizapp.util.ColorScheme;
+import quizapp.util.LatencySketch;
+import quizapp.util.MetricsRegistry;
 
 public class HostGameScreen extends JFrame {
 
+    private static final Color[] OPTION_COLORS = {
+            ColorScheme.OPTION_A,
+            ColorScheme.OPTION_B,
+            ColorScheme.OPTION_C,
+            ColorScheme.OPTION_D
+    };
+
     private JPanel mainPanel;
     private JPanel leftPanel;
     private JPanel rightPanel;
     private JPanel playerListPanel;
+    private CardLayout playerListCards;
+    private JTable playerTable;
+    private PlayerTableModel playerTableModel;
     private JPanel questionPanel;
     private JLabel roomCodeLabel;
     private JLabel timerLabel;
     private JLabel questionLabel;
+    private JLabel answerDistributionLabel;
+    private JLabel responseTimeLabel;
+    private JLabel rttLabel;
     private JLabel statusLabel;
     private JButton startButton;
     private JButton endQuizButton;
 
     private Quiz quiz;
     private GameServer server;
-    private Question currentQuestion;
-    private Timer questionTimer;
-    private int timeRemaining;
     private boolean quizStarted = false;
+    // Newest player list not yet shown; a burst of joins is applied once
+    private final AtomicReference<List<Player>> pendingPlayers = new AtomicReference<>();
+    // EDT time per player list update, in microseconds
+    private final LatencySketch playerListUpdateMicros = new LatencySketch();
 
     public HostGameScreen(Quiz quiz, GameServer server) {
         this.quiz = quiz;
@@ -51,7 +66,34 @@ public class HostGameScreen extends JFrame {
         setLocationRelativeTo(null);
 
         showLobby();
+        MetricsRegistry.SHARED.histogram("quiz_host_player_list_update_micros",
+                "Time the event dispatch thread spends applying one player list update",
+                playerListUpdateMicros, "room", quiz.roomCode);
         server.setPlayerUpdateCallback(this::updatePlayerList);
+        server.setAnswerTallyCallback(this::updateAnswerDistribution);
+        server.setResponseTimeCallback(this::updateResponseTimes);
+        server.setRttCallback(this::updateRoundTripTimes);
+        server.addGameListener(new GameListener() {
+            @Override
+            public void questionStarted(Question question, int questionIndex, int questionCount) {
+                SwingUtilities.invokeLater(() -> showQuestion(question, questionIndex, questionCount));
+            }
+
+            @Override
+            public void timerTick(int secondsRemaining) {
+                SwingUtilities.invokeLater(() -> updateTimerDisplay(secondsRemaining));
+            }
+
+            @Override
+            public void questionClosed(Question question, int questionIndex) {
+                SwingUtilities.invokeLater(() -> showCorrectAnswer(question));
+            }
+
+            @Override
+            public void quizFinished(List<Player> results) {
+                SwingUtilities.invokeLater(() -> showResults(results));
+            }
+        });
     }
 
     private void initComponents() {
@@ -97,9 +139,47 @@ public class HostGameScreen extends JFrame {
         questionLabel.setFont(new Font("Arial", Font.BOLD, 20));
         questionLabel.setForeground(ColorScheme.PRIMARY_TEXT);
 
-        playerListPanel = new JPanel();
-        playerListPanel.setLayout(new BoxLayout(playerListPanel, BoxLayout.Y_AXIS));
+        answerDistributionLabel = new JLabel(" ");
+        answerDistributionLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        answerDistributionLabel.setForeground(ColorScheme.SECONDARY_TEXT);
+        answerDistributionLabel.setHorizontalAlignment(SwingConstants.CENTER);
+
+        responseTimeLabel = new JLabel(" ");
+        responseTimeLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        responseTimeLabel.setForeground(ColorScheme.SECONDARY_TEXT);
+        responseTimeLabel.setHorizontalAlignment(SwingConstants.CENTER);
+
+        rttLabel = new JLabel("Network RTT: waiting for players");
+        rttLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        rttLabel.setForeground(ColorScheme.SECONDARY_TEXT);
+        rttLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
+
+        playerTableModel = new PlayerTableModel();
+        playerTable = new JTable(playerTableModel);
+        playerTable.setFont(new Font("Arial", Font.BOLD, 14));
+        playerTable.setRowHeight(30);
+        playerTable.setBackground(ColorScheme.CARD_BACKGROUND);
+        playerTable.setGridColor(ColorScheme.SECONDARY);
+        playerTable.setShowVerticalLines(false);
+        playerTable.setRowSelectionAllowed(false);
+        playerTable.setFocusable(false);
+        playerTable.getTableHeader().setReorderingAllowed(false);
+        playerTable.getColumnModel().getColumn(0).setMaxWidth(50);
+        playerTable.getColumnModel().getColumn(2).setMaxWidth(80);
+
+        JLabel noPlayersLabel = new JLabel("No players yet");
+        noPlayersLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        noPlayersLabel.setVerticalAlignment(SwingConstants.TOP);
+
+        JScrollPane playerScrollPane = new JScrollPane(playerTable);
+        playerScrollPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        playerScrollPane.getViewport().setBackground(ColorScheme.BACKGROUND);
+
+        playerListCards = new CardLayout();
+        playerListPanel = new JPanel(playerListCards);
         playerListPanel.setBackground(ColorScheme.BACKGROUND);
+        playerListPanel.add(noPlayersLabel, "empty");
+        playerListPanel.add(playerScrollPane, "players");
 
         statusLabel = new JLabel("Lobby - Waiting for players");
         statusLabel.setFont(new Font("Arial", Font.ITALIC, 16));
@@ -133,6 +213,11 @@ public class HostGameScreen extends JFrame {
 
         questionPanel.add(timerLabel, BorderLayout.NORTH);
         questionPanel.add(questionLabel, BorderLayout.CENTER);
+        JPanel livePanel = new JPanel(new GridLayout(2, 1, 0, 5));
+        livePanel.setBackground(ColorScheme.CARD_BACKGROUND);
+        livePanel.add(answerDistributionLabel);
+        livePanel.add(responseTimeLabel);
+        questionPanel.add(livePanel, BorderLayout.SOUTH);
 
         JPanel questionControlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
         questionControlPanel.setBackground(ColorScheme.BACKGROUND);
@@ -142,9 +227,8 @@ public class HostGameScreen extends JFrame {
         leftPanel.add(questionPanel, BorderLayout.CENTER);
         leftPanel.add(questionControlPanel, BorderLayout.SOUTH);
 
-        JScrollPane playerScrollPane = new JScrollPane(playerListPanel);
-        playerScrollPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-        rightPanel.add(playerScrollPane, BorderLayout.CENTER);
+        rightPanel.add(playerListPanel, BorderLayout.CENTER);
+        rightPanel.add(rttLabel, BorderLayout.SOUTH);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, rightPanel);
         splitPane.setResizeWeight(0.7);
@@ -174,10 +258,8 @@ public class HostGameScreen extends JFrame {
             );
 
             if (confirm == JOptionPane.YES_OPTION) {
-                if (questionTimer != null) {
-                    questionTimer.cancel();
-                }
-                showResults();
+                endQuizButton.setEnabled(false);
+                server.endGame();
             }
         });
     }
@@ -185,7 +267,7 @@ public class HostGameScreen extends JFrame {
     private void showLobby() {
         questionLabel.setText("Waiting for players to join...");
         statusLabel.setText("Lobby - Waiting for players");
-        startButton.setText("Start Quiz");
+        startButton.setText(quiz.currentQuestionIndex >= 0 ? "Resume Quiz" : "Start Quiz");
         startButton.setForeground(Color.BLACK);
         timerLabel.setText("");
         updatePlayerList(server.getConnectedPlayers());
@@ -195,57 +277,20 @@ public class HostGameScreen extends JFrame {
         quizStarted = true;
         startButton.setEnabled(false);
         endQuizButton.setEnabled(true);
-        nextQuestion();
-    }
-
-    private void nextQuestion() {
-        quiz.currentQuestionIndex++;
-
-        if (quiz.currentQuestionIndex < quiz.getQuestions().size()) {
-            currentQuestion = quiz.getQuestions().get(quiz.currentQuestionIndex);
-
-            questionLabel.setText("<html><div style='text-align: center;'>" +
-                    "Question " + (quiz.currentQuestionIndex + 1) + "/" + quiz.getQuestions().size() +
-                    "<br><br>" + currentQuestion.getText() + "</div></html>");
-
-            statusLabel.setText("Question in progress...");
-            startQuestionTimer(currentQuestion.getTimeLimit());
-            server.broadcastQuestion(currentQuestion, quiz.currentQuestionIndex);
-        } else {
-            showResults();
-        }
+        server.startGame();
     }
 
-    private void startQuestionTimer(int seconds) {
-        if (questionTimer != null) {
-            questionTimer.cancel();
-        }
-
-        questionTimer = new Timer();
-        timeRemaining = seconds;
-
-        updateTimerDisplay();
-
-        questionTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                timeRemaining--;
-
-                SwingUtilities.invokeLater(() -> {
-                    updateTimerDisplay();
+    private void showQuestion(Question question, int questionIndex, int questionCount) {
+        questionLabel.setText("<html><div style='text-align: center;'>" +
+                "Question " + (questionIndex + 1) + "/" + questionCount +
+                "<br><br>" + question.getText() + "</div></html>");
 
-                    if (timeRemaining <= 0) {
-                        questionTimer.cancel();
-                        questionTimeUp();
-                    }
-                });
-            }
-        }, 1000, 1000);
+        statusLabel.setText("Question in progress...");
+        updateTimerDisplay(question.getTimeLimit());
     }
 
-    private void updateTimerDisplay() {
+    private void updateTimerDisplay(int timeRemaining) {
         timerLabel.setText(String.format("%02d:%02d", timeRemaining / 60, timeRemaining % 60));
-        server.broadcastTimer(timeRemaining);
         if (timeRemaining <= 5) {
             timerLabel.setForeground(ColorScheme.ERROR);
         } else if (timeRemaining <= 10) {
@@ -255,46 +300,25 @@ public class HostGameScreen extends JFrame {
         }
     }
 
-    private void questionTimeUp() {
-        server.broadcastTimeUp();
-
-        String[] options = currentQuestion.getOptions();
-        int correctIndex = currentQuestion.getCorrectAnswerIndex();
+    private void showCorrectAnswer(Question question) {
+        String[] options = question.getOptions();
+        int correctIndex = question.getCorrectAnswerIndex();
         String correctAnswer = options[correctIndex];
 
+        updateTimerDisplay(0);
         questionLabel.setText("<html><div style='text-align: center;'>" +
-                currentQuestion.getText() +
+                question.getText() +
                 "<br><br>Correct Answer: <span style='color: green; font-weight: bold;'>" +
                 "Option " + (char)('A' + correctIndex) + ": " + correctAnswer +
                 "</span></div></html>");
-
-        Timer transitionTimer = new Timer();
-        transitionTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> {
-                    if (quiz.currentQuestionIndex < quiz.getQuestions().size() - 1) {
-                        nextQuestion();
-                    } else {
-                        showResults();
-                    }
-                });
-            }
-        }, 3000);
     }
 
-    private void showResults() {
-        if (questionTimer != null) {
-            questionTimer.cancel();
-        }
-
+    private void showResults(List<Player> players) {
         statusLabel.setText("Quiz completed!");
         timerLabel.setText("");
         startButton.setEnabled(false);
         endQuizButton.setEnabled(false);
 
-        List<Player> players = new ArrayList<>(server.getConnectedPlayers());
-
         if (players.isEmpty()) {
             questionLabel.setText("<html><div style='text-align: center;'>" +
                     "<h1>Quiz Completed</h1>" +
@@ -317,7 +341,8 @@ public class HostGameScreen extends JFrame {
 
                 resultsHtml.append("<tr ").append(style).append(">");
                 resultsHtml.append("<td>").append(i + 1).append("</td>");
-                resultsHtml.append("<td>").append(p.getName()).append(" scored ").append(p.getCorrectAnswers()).append("</td>");
+                resultsHtml.append("<td>").append(p.getName()).append(" scored ").append(p.getScore())
+                        .append(" points (").append(p.getCorrectAnswers()).append(" correct)</td>");
                 resultsHtml.append("</tr>");
             }
 
@@ -325,44 +350,56 @@ public class HostGameScreen extends JFrame {
             questionLabel.setText(resultsHtml.toString());
         }
 
-        server.broadcastResults(players);
+        LatencySketch responseTimes = server.getGameResponseTimes();
+        answerDistributionLabel.setText(" ");
+        responseTimeLabel.setText(responseTimes.getCount() == 0 ? " " :
+                "Response time over " + responseTimes.getCount() + " answers: " + responseTimes.summary());
     }
 
-    private void updatePlayerList(List<Player> players) {
+    private void updateAnswerDistribution(int[] answerCounts) {
         SwingUtilities.invokeLater(() -> {
-            playerListPanel.removeAll();
-
-            if (players.isEmpty()) {
-                JLabel noPlayersLabel = new JLabel("No players yet");
-                noPlayersLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-                playerListPanel.add(noPlayersLabel);
-            } else {
-                for (Player player : players) {
-                    JPanel playerPanel = createPlayerPanel(player);
-                    playerListPanel.add(playerPanel);
-                    playerListPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-                }
+            int total = 0;
+            StringBuilder text = new StringBuilder("<html>");
+            for (int i = 0; i < answerCounts.length; i++) {
+                Color color = i < OPTION_COLORS.length ? OPTION_COLORS[i] : ColorScheme.PRIMARY_TEXT;
+                text.append(String.format("<span style='color: #%06x;'>%c: %d</span>&nbsp;&nbsp;&nbsp;",
+                        color.getRGB() & 0xFFFFFF, (char)('A' + i), answerCounts[i]));
+                total += answerCounts[i];
             }
-
-            playerListPanel.revalidate();
-            playerListPanel.repaint();
+            text.append("(").append(total).append(" answered)</html>");
+            answerDistributionLabel.setText(text.toString());
         });
     }
 
-    private JPanel createPlayerPanel(Player player) {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BorderLayout());
-        panel.setBackground(ColorScheme.CARD_BACKGROUND);
-        panel.setBorder(BorderFactory.createLineBorder(ColorScheme.SECONDARY, 1));
-        panel.setMaximumSize(new Dimension(230, 40));
-        panel.setPreferredSize(new Dimension(230, 40));
+    private void updateResponseTimes(LatencySketch responseTimes) {
+        String text = responseTimes.getCount() == 0 ? " " : "Response time: " + responseTimes.summary();
+        SwingUtilities.invokeLater(() -> responseTimeLabel.setText(text));
+    }
 
-        JLabel nameLabel = new JLabel(player.getName());
-        nameLabel.setFont(new Font("Arial", Font.BOLD, 14));
-        nameLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+    private void updateRoundTripTimes(LatencySketch roundTripTimes) {
+        String text = roundTripTimes.getCount() == 0 ? "Network RTT: waiting for players" :
+                "Network RTT: " + roundTripTimes.summary() + "  max " + roundTripTimes.getMax() + "ms";
+        SwingUtilities.invokeLater(() -> rttLabel.setText(text));
+    }
 
-        panel.add(nameLabel, BorderLayout.CENTER);
+    /**
+     * Called from server threads. Only the newest list matters, so a burst
+     * of updates queues a single task on the event dispatch thread.
+     */
+    private void updatePlayerList(List<Player> players) {
+        if (pendingPlayers.getAndSet(players) == null) {
+            SwingUtilities.invokeLater(this::applyPlayerUpdate);
+        }
+    }
 
-        return panel;
+    private void applyPlayerUpdate() {
+        List<Player> players = pendingPlayers.getAndSet(null);
+        if (players == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        playerTableModel.update(players);
+        playerListCards.show(playerListPanel, players.isEmpty() ? "empty" : "players");
+        playerListUpdateMicros.record((System.nanoTime() - start) / 1000);
     }
 }
\ No newline at end of file
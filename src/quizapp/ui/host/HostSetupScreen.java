@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import quizapp.model.Question;
 import quizapp.model.Quiz;
 import quizapp.network.GameServer;
+import quizapp.network.RoomStateStore;
 import quizapp.util.ColorScheme;
 
 public class HostSetupScreen extends JFrame {
@@ -109,7 +110,7 @@ public class HostSetupScreen extends JFrame {
         JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         infoPanel.setBackground(mainPanel.getBackground());
         JLabel infoLabel1 = new JLabel("Questions will automatically advance after the timer expires.");
-        JLabel infoLabel2 = new JLabel("Players receive 100 points for correct answers.");
+        JLabel infoLabel2 = new JLabel("Correct answers earn 50 to 100 points - faster answers earn more.");
         infoLabel1.setForeground(ColorScheme.SECONDARY_TEXT);
         infoLabel2.setForeground(ColorScheme.SECONDARY_TEXT);
         infoPanel.add(infoLabel1);
@@ -169,6 +170,48 @@ public class HostSetupScreen extends JFrame {
         startQuizButton.setEnabled(!questions.isEmpty());
     }
 
+    /**
+     * Offers to resume a quiz whose host stopped unexpectedly, or else to
+     * discard its saved state. Returns true if a recovered game screen was
+     * opened.
+     */
+    public static boolean resumeInterruptedQuiz(Component parent) {
+        for (String roomCode : RoomStateStore.findRecoverableRooms()) {
+            int confirm = JOptionPane.showConfirmDialog(parent,
+                    "An interrupted quiz was found for room " + roomCode + ". Resume it?",
+                    "Resume Quiz",
+                    JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) {
+                int discard = JOptionPane.showConfirmDialog(parent,
+                        "Discard the saved state for room " + roomCode + "? It cannot be resumed afterwards.",
+                        "Discard Quiz",
+                        JOptionPane.YES_NO_OPTION);
+                if (discard == JOptionPane.YES_OPTION) {
+                    new RoomStateStore(roomCode).discard();
+                }
+                continue;
+            }
+
+            GameServer server = GameServer.recover(roomCode);
+            if (server == null) {
+                continue;
+            }
+            try {
+                server.start();
+                HostGameScreen gameScreen = new HostGameScreen(server.getQuiz(), server);
+                gameScreen.setVisible(true);
+                return true;
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(parent,
+                        "Error starting server: " + e.getMessage(),
+                        "Server Error",
+                        JOptionPane.ERROR_MESSAGE);
+                e.printStackTrace();
+            }
+        }
+        return false;
+    }
+
     private void startQuiz() {
         if (questions.isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -0,0 +1,223 @@
+package quizapp.ui.host;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import quizapp.model.Player;
+
+/**
+ * Rows of the host's player list, in the ranking order the server sends.
+ *
+ * The server publishes the whole ranked list on every join, leave and
+ * score change. Each list is diffed against the current rows so the table
+ * only hears about what changed: players who left are deleted, new players
+ * inserted where they rank, and changed scores updated in place. When the
+ * ranking itself moves, only the span of rows that changed places is
+ * repainted. The table renders only the visible rows, so the cost of an
+ * update does not grow with the number of players beyond the diff itself.
+ *
+ * Only used on the event dispatch thread. Rows copy the values they show,
+ * since the server keeps changing its Player objects.
+ */
+public class PlayerTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"#", "Player", "Score"};
+
+    private static final class Row {
+        final String name;
+        int score;
+        int correctAnswers;
+
+        Row(Player player) {
+            this.name = player.getName();
+            this.score = player.getScore();
+            this.correctAnswers = player.getCorrectAnswers();
+        }
+
+        /**
+         * Copies the player's current values and says whether any changed.
+         */
+        boolean update(Player player) {
+            if (score == player.getScore() && correctAnswers == player.getCorrectAnswers()) {
+                return false;
+            }
+            score = player.getScore();
+            correctAnswers = player.getCorrectAnswers();
+            return true;
+        }
+    }
+
+    // Rows are rebuilt from the server's next update, never serialized
+    private transient List<Row> rows = new ArrayList<>();
+    private final transient Map<String, Row> rowsByName = new HashMap<>();
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 ? String.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        Row row = rows.get(rowIndex);
+        switch (column) {
+            case 0:
+                return rowIndex + 1;
+            case 1:
+                return row.name;
+            default:
+                return row.score;
+        }
+    }
+
+    /**
+     * Brings the rows in line with a ranked list of players from the server,
+     * firing the smallest set of row events that describes the change.
+     */
+    public void update(List<Player> players) {
+        Map<String, Player> incoming = new HashMap<>(players.size() * 2);
+        for (Player player : players) {
+            incoming.put(player.getName(), player);
+        }
+        removeDeparted(incoming);
+
+        // Rows that stay must keep their order for in-place inserts to work
+        boolean orderKept = true;
+        int next = 0;
+        for (Player player : players) {
+            if (rowsByName.containsKey(player.getName())) {
+                if (!rows.get(next++).name.equals(player.getName())) {
+                    orderKept = false;
+                    break;
+                }
+            }
+        }
+        if (orderKept) {
+            mergeInOrder(players);
+        } else {
+            rerank(players);
+        }
+    }
+
+    private void removeDeparted(Map<String, Player> incoming) {
+        int runEnd = -1;
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            Row row = rows.get(i);
+            if (!incoming.containsKey(row.name)) {
+                rowsByName.remove(row.name);
+                if (runEnd < 0) {
+                    runEnd = i;
+                }
+            } else if (runEnd >= 0) {
+                deleteRows(i + 1, runEnd);
+                runEnd = -1;
+            }
+        }
+        if (runEnd >= 0) {
+            deleteRows(0, runEnd);
+        }
+    }
+
+    private void deleteRows(int first, int last) {
+        rows.subList(first, last + 1).clear();
+        fireTableRowsDeleted(first, last);
+    }
+
+    /**
+     * Inserts new players at their rank and updates changed rows, for when
+     * no existing player has changed places.
+     */
+    private void mergeInOrder(List<Player> players) {
+        int insertStart = -1;
+        int updateStart = -1;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            Row row = rowsByName.get(player.getName());
+            if (row == null) {
+                if (updateStart >= 0) {
+                    fireTableRowsUpdated(updateStart, i - 1);
+                    updateStart = -1;
+                }
+                row = new Row(player);
+                rowsByName.put(row.name, row);
+                rows.add(i, row);
+                if (insertStart < 0) {
+                    insertStart = i;
+                }
+                continue;
+            }
+            if (insertStart >= 0) {
+                fireTableRowsInserted(insertStart, i - 1);
+                insertStart = -1;
+            }
+            if (row.update(player)) {
+                if (updateStart < 0) {
+                    updateStart = i;
+                }
+            } else if (updateStart >= 0) {
+                fireTableRowsUpdated(updateStart, i - 1);
+                updateStart = -1;
+            }
+        }
+        if (insertStart >= 0) {
+            fireTableRowsInserted(insertStart, players.size() - 1);
+        }
+        if (updateStart >= 0) {
+            fireTableRowsUpdated(updateStart, players.size() - 1);
+        }
+    }
+
+    /**
+     * Appends new players, then puts every row in ranking order and
+     * repaints the span of rows that changed.
+     */
+    private void rerank(List<Player> players) {
+        int existing = rows.size();
+        for (Player player : players) {
+            if (!rowsByName.containsKey(player.getName())) {
+                Row row = new Row(player);
+                rowsByName.put(row.name, row);
+                rows.add(row);
+            }
+        }
+        if (rows.size() > existing) {
+            fireTableRowsInserted(existing, rows.size() - 1);
+        }
+
+        List<Row> ranked = new ArrayList<>(players.size());
+        int firstChanged = -1;
+        int lastChanged = -1;
+        for (int i = 0; i < players.size(); i++) {
+            Row row = rowsByName.get(players.get(i).getName());
+            boolean changed = row.update(players.get(i)) | row != rows.get(i);
+            ranked.add(row);
+            if (changed) {
+                if (firstChanged < 0) {
+                    firstChanged = i;
+                }
+                lastChanged = i;
+            }
+        }
+        rows = ranked;
+        if (firstChanged >= 0) {
+            fireTableRowsUpdated(firstChanged, lastChanged);
+        }
+    }
+}
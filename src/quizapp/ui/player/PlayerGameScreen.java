@@ -25,6 +25,7 @@ public class PlayerGameScreen extends JFrame {
     private JLabel timerLabel;
     private JLabel questionLabel;
     private JLabel statusLabel;
+    private JLabel scoreLabel;
     private JButton[] answerButtons;
     private JButton exitButton;
 
@@ -90,7 +91,7 @@ public class PlayerGameScreen extends JFrame {
             answerButtons[i].setFocusPainted(false);
             answerButtons[i].setPreferredSize(new Dimension(150, 80));
             final int index = i;
-            answerButtons[i].addActionListener(e -> selectAnswer(index));
+            answerButtons[i].addActionListener(e -> selectAnswer(index, clickedNanos(e.getWhen())));
             answerPanel.add(answerButtons[i]);
         }
 
@@ -124,7 +125,12 @@ public class PlayerGameScreen extends JFrame {
         nameLabel.setFont(new Font("Arial", Font.BOLD, 18));
         nameLabel.setForeground(Color.WHITE);
 
+        scoreLabel = new JLabel("");
+        scoreLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        scoreLabel.setForeground(Color.WHITE);
+
         headerPanel.add(nameLabel, BorderLayout.WEST);
+        headerPanel.add(scoreLabel, BorderLayout.EAST);
 
         JPanel contentPanel = new JPanel(new BorderLayout());
         contentPanel.setBackground(ColorScheme.BACKGROUND);
@@ -159,9 +165,13 @@ public class PlayerGameScreen extends JFrame {
     private void setupClientCallbacks() {
         client.setQuestionCallback((question, questionNumber, totalQuestions) -> {
             SwingUtilities.invokeLater(() -> {
+                long startedNanos = System.nanoTime();
                 currentQuestion = question;
                 selectedAnswer = -1;  // Reset selected answer for new question
                 showQuestion(question, questionNumber, totalQuestions);
+                // Runs after the repaint queued by showQuestion, so the
+                // report includes painting the question
+                SwingUtilities.invokeLater(() -> client.questionRendered(questionNumber, startedNanos));
             });
         });
 
@@ -171,9 +181,15 @@ public class PlayerGameScreen extends JFrame {
             });
         });
 
-        client.setTimeUpCallback(() -> {
+        client.setTimeUpCallback((answerCounts) -> {
+            SwingUtilities.invokeLater(() -> {
+                timeUp(answerCounts);
+            });
+        });
+
+        client.setScoreUpdateCallback((leaderboard) -> {
             SwingUtilities.invokeLater(() -> {
-                timeUp();
+                updateScore(leaderboard);
             });
         });
 
@@ -240,7 +256,16 @@ public class PlayerGameScreen extends JFrame {
         statusLabel.setText("Waiting for host...");
     }
 
-    private void selectAnswer(int index) {
+    /**
+     * Converts an input event's timestamp to System.nanoTime(), so time the
+     * click spent queued before reaching the listener is counted.
+     */
+    private static long clickedNanos(long eventMillis) {
+        long queuedMillis = Math.max(0, System.currentTimeMillis() - eventMillis);
+        return System.nanoTime() - queuedMillis * 1_000_000;
+    }
+
+    private void selectAnswer(int index, long clickedNanos) {
         if (selectedAnswer != -1) {
             return;
         }
@@ -255,7 +280,7 @@ public class PlayerGameScreen extends JFrame {
             }
         }
 
-        client.sendAnswer(index);
+        client.sendAnswer(index, clickedNanos);
         statusLabel.setText("Answer submitted! Waiting for next question...");
     }
 
@@ -273,21 +298,46 @@ public class PlayerGameScreen extends JFrame {
         }
     }
 
-    private void timeUp() {
+    private void timeUp(int[] answerCounts) {
         for (JButton button : answerButtons) {
             button.setEnabled(false);
         }
 
+        String outcome;
         if (selectedAnswer == -1) {
-            statusLabel.setText("Time's up! You didn't answer.");
+            outcome = "Time's up! You didn't answer.";
         } else if (selectedAnswer == currentQuestion.getCorrectAnswerIndex()) {
-            statusLabel.setText("Correct! Well done!");
+            outcome = "Correct! Well done!";
         } else {
-            statusLabel.setText("Incorrect.");
+            outcome = "Incorrect.";
         }
 
+        StringBuilder message = new StringBuilder("<html><div style='text-align: center;'>");
+        message.append(outcome).append("<br><br>");
+        if (answerCounts != null) {
+            for (int i = 0; i < answerCounts.length; i++) {
+                message.append((char)('A' + i)).append(": ").append(answerCounts[i]).append("&nbsp;&nbsp;");
+            }
+            message.append("<br><br>");
+        }
+        message.append("Waiting for next question...</div></html>");
+
         // Show waiting screen immediately after time up
-        showWaitingScreen("Waiting for next question...");
+        showWaitingScreen(message.toString());
+    }
+
+    private void updateScore(List<Player> leaderboard) {
+        for (int i = 0; i < leaderboard.size(); i++) {
+            Player player = leaderboard.get(i);
+            if (player.getName().equals(client.getPlayerName())) {
+                scoreLabel.setText(player.getScore() + " pts  (#" + (i + 1) + ")");
+                return;
+            }
+        }
+        if (!leaderboard.isEmpty()) {
+            Player leader = leaderboard.get(0);
+            scoreLabel.setText("Leader: " + leader.getName() + " " + leader.getScore() + " pts");
+        }
     }
 
     private void handleDisconnect() {
@@ -0,0 +1,128 @@
+package quizapp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory streaming histogram for quantiles of non-negative values,
+ * bucketed log-linearly in the style of an HDR histogram: values below 32 are
+ * exact, larger values fall into one of 32 sub-buckets per power of two, so
+ * any reported quantile is within about 3% of the true value.
+ *
+ * Recording is lock-free and safe from any thread. Sketches with the same
+ * layout can be merged, e.g. to report across questions or rooms.
+ */
+public class LatencySketch {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // values are clamped to 2^41 - 1
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // retry until max is at least value
+        }
+    }
+
+    /**
+     * Adds every value recorded in another sketch to this one.
+     */
+    public void merge(LatencySketch other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long n = other.buckets.get(i);
+            if (n != 0) {
+                buckets.addAndGet(i, n);
+            }
+        }
+        count.addAndGet(other.count.get());
+        long otherMax = other.max.get();
+        long currentMax;
+        while (otherMax > (currentMax = max.get()) && !max.compareAndSet(currentMax, otherMax)) {
+            // retry until max is at least otherMax
+        }
+    }
+
+    public static LatencySketch merged(Iterable<LatencySketch> sketches) {
+        LatencySketch result = new LatencySketch();
+        for (LatencySketch sketch : sketches) {
+            if (sketch != null) {
+                result.merge(sketch);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value at the given quantile (0.0 to 1.0), or 0 if nothing
+     * has been recorded.
+     */
+    public long quantile(double quantile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketMidpoint(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Formats p50/p90/p99 of a sketch holding millisecond values.
+     */
+    public String summary() {
+        return String.format("p50 %s  p90 %s  p99 %s",
+                formatMillis(quantile(0.50)), formatMillis(quantile(0.90)), formatMillis(quantile(0.99)));
+    }
+
+    private static String formatMillis(long millis) {
+        return millis < 1000 ? millis + "ms" : String.format("%.1fs", millis / 1000.0);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long bucketMidpoint(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowerBound + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,280 @@
+package quizapp.util;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Leveled, structured logging for the server and client internals. Not to
+ * be confused with {@link Logger}, which writes the answer CSV.
+ *
+ * Each call takes a message and key-value fields, e.g.
+ * {@code LOG.info("Client disconnected", "player", name, "reason", e.getMessage())};
+ * a Throwable after the last pair is printed with its stack trace. A
+ * message that is costly to build can be passed as a Supplier, which is
+ * only called if the level is enabled. Below the level, a call is a single
+ * field read, and the JIT removes the field array as well.
+ *
+ * Records are handed to one writer thread through a bounded queue and
+ * formatted there as one logfmt line each: time, level, logger, message,
+ * then the fields. The calling thread never formats or blocks on output. If
+ * the queue is full the record is dropped and counted, and the count is
+ * reported once the writer catches up. WARN and ERROR go to standard error,
+ * the rest to standard output. Field values are rendered on the writer
+ * thread, so pass values that do not change afterwards.
+ *
+ * The level comes from the quizapp.log.level system property (default
+ * INFO) and can be changed at runtime with {@link #setLevel(Level)}.
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong enqueued = new AtomicLong();
+    private static volatile long written; // only advanced by the writer thread
+    private static volatile int threshold = parseLevel(System.getProperty("quizapp.log.level")).ordinal();
+    private static volatile PrintStream out = System.out;
+    private static volatile PrintStream err = System.err;
+
+    static {
+        Thread writer = new Thread(Log::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(500), "log-flush"));
+    }
+
+    private final String name;
+
+    private static final class Record {
+        final long epochMillis = System.currentTimeMillis();
+        final Level level;
+        final String logger;
+        final String message;
+        final Object[] fields;
+
+        Record(Level level, String logger, String message, Object[] fields) {
+            this.level = level;
+            this.logger = logger;
+            this.message = message;
+            this.fields = fields;
+        }
+    }
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    public static Log get(String name) {
+        return new Log(name);
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    public static Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    /**
+     * Sends output to other streams, e.g. to keep it out of a console UI.
+     */
+    public static void setOutput(PrintStream standard, PrintStream errors) {
+        out = standard;
+        err = errors;
+    }
+
+    /**
+     * Records dropped because the writer fell behind, since startup.
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    /**
+     * Hot paths check this before calling debug, which otherwise builds its
+     * field array even when debug is off.
+     */
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    public void debug(String message, Object... fields) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            enqueue(Level.DEBUG, message, fields);
+        }
+    }
+
+    public void debug(Supplier<String> message, Object... fields) {
+        if (Level.DEBUG.ordinal() >= threshold) {
+            enqueue(Level.DEBUG, message.get(), fields);
+        }
+    }
+
+    public void info(String message, Object... fields) {
+        if (Level.INFO.ordinal() >= threshold) {
+            enqueue(Level.INFO, message, fields);
+        }
+    }
+
+    public void info(Supplier<String> message, Object... fields) {
+        if (Level.INFO.ordinal() >= threshold) {
+            enqueue(Level.INFO, message.get(), fields);
+        }
+    }
+
+    public void warn(String message, Object... fields) {
+        if (Level.WARN.ordinal() >= threshold) {
+            enqueue(Level.WARN, message, fields);
+        }
+    }
+
+    public void error(String message, Object... fields) {
+        if (Level.ERROR.ordinal() >= threshold) {
+            enqueue(Level.ERROR, message, fields);
+        }
+    }
+
+    private void enqueue(Level level, String message, Object[] fields) {
+        if (queue.offer(new Record(level, name, message, fields))) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits up to the given time for the records queued so far to be
+     * written, e.g. before exiting.
+     */
+    public static void flush(long timeoutMillis) {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (written < target && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void drain() {
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        while (true) {
+            Record record;
+            try {
+                record = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                err.println(Instant.now() + " WARN  Log msg=\"Records dropped, writer fell behind\" dropped="
+                        + (drops - reportedDrops));
+                reportedDrops = drops;
+            }
+            line.setLength(0);
+            PrintStream stream = record.level.ordinal() >= Level.WARN.ordinal() ? err : out;
+            try {
+                Throwable error = format(record, line);
+                stream.println(line);
+                if (error != null) {
+                    error.printStackTrace(stream);
+                }
+            } catch (RuntimeException e) {
+                // A field's toString() failed; keep the writer alive
+                stream.println(line.append(" logError=").append(e));
+            }
+            written++;
+        }
+    }
+
+    /**
+     * Appends the record as a logfmt line and returns a trailing Throwable
+     * field, if there is one.
+     */
+    private static Throwable format(Record record, StringBuilder line) {
+        line.append(Instant.ofEpochMilli(record.epochMillis)).append(' ');
+        String level = record.level.name();
+        line.append(level);
+        for (int i = level.length(); i < 5; i++) {
+            line.append(' ');
+        }
+        line.append(' ').append(record.logger).append(" msg=");
+        appendValue(line, record.message);
+
+        Object[] fields = record.fields;
+        int pairs = fields.length / 2;
+        for (int i = 0; i < pairs; i++) {
+            line.append(' ').append(fields[2 * i]).append('=');
+            appendValue(line, fields[2 * i + 1]);
+        }
+        if (fields.length % 2 == 1) {
+            Object last = fields[fields.length - 1];
+            if (last instanceof Throwable) {
+                line.append(" error=");
+                appendValue(line, last.toString());
+                return (Throwable) last;
+            }
+            line.append(" extra=");
+            appendValue(line, last);
+        }
+        return null;
+    }
+
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static Level parseLevel(String value) {
+        if (value != null) {
+            try {
+                return Level.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown log level " + value + ", using INFO");
+            }
+        }
+        return Level.INFO;
+    }
+}
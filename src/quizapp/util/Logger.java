@@ -1,14 +1,47 @@
 package quizapp.util;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Writes every answer to a CSV file per room. Answers are logged from the
+ * scoring threads, so logging one only queues it without a lock; lines are
+ * formatted and written when the server flushes, off the scoring path.
+ */
 public class Logger {
     private static final String CSV_DIRECTORY = "logs/";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private String csvFileName;
-    private FileWriter csvWriter;
+    private BufferedWriter csvWriter;
+    private final ConcurrentLinkedQueue<AnswerRecord> pending = new ConcurrentLinkedQueue<>();
+    // Formatted timestamp of the last second written, reused for its lines
+    private long timestampSecond = -1;
+    private String secondTimestamp;
+    private volatile boolean closed;
+    private final StringBuilder line = new StringBuilder(96);
+
+    private static final class AnswerRecord {
+        final long epochMillis = System.currentTimeMillis();
+        final String playerName;
+        final int questionNumber;
+        final String answer;
+        final String correctAnswer;
+        final long timeTaken;
+
+        AnswerRecord(String playerName, int questionNumber, String answer, String correctAnswer, long timeTaken) {
+            this.playerName = playerName;
+            this.questionNumber = questionNumber;
+            this.answer = answer;
+            this.correctAnswer = correctAnswer;
+            this.timeTaken = timeTaken;
+        }
+    }
 
     public Logger(String roomCode) {
         initializeCSV(roomCode);
@@ -27,7 +60,7 @@ public class Logger {
             csvFileName = CSV_DIRECTORY + "quiz_" + roomCode + "_" + timestamp + ".csv";
 
             // Initialize CSV writer and write header
-            csvWriter = new FileWriter(csvFileName);
+            csvWriter = new BufferedWriter(new FileWriter(csvFileName));
             csvWriter.write("Timestamp,PlayerName,QuestionNumber,Answer,CorrectAnswer,TimeTaken\n");
             csvWriter.flush();
         } catch (IOException e) {
@@ -35,22 +68,63 @@ public class Logger {
         }
     }
 
+    /**
+     * Queues an answer for the next flush. Safe to call from any thread
+     * and never blocks.
+     */
     public void logAnswer(String playerName, int questionNumber, String answer, String correctAnswer, long timeTaken) {
+        if (closed) {
+            return;
+        }
+        pending.add(new AnswerRecord(playerName, questionNumber, answer, correctAnswer, timeTaken));
+    }
+
+    // Answers are buffered; the server flushes periodically rather than per line
+    public synchronized void flush() {
         try {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            String line = String.format("%s,%s,%d,%s,%s,%d\n",
-                    timestamp, playerName, questionNumber, answer, correctAnswer, timeTaken);
-            csvWriter.write(line);
-            csvWriter.flush();
+            writePending();
+            if (csvWriter != null) {
+                csvWriter.flush();
+            }
         } catch (IOException e) {
-            System.err.println("Error writing to CSV file: " + e.getMessage());
+            System.err.println("Error flushing CSV file: " + e.getMessage());
+        }
+    }
+
+    private void writePending() throws IOException {
+        AnswerRecord record;
+        while ((record = pending.poll()) != null) {
+            if (csvWriter == null) {
+                continue;
+            }
+            line.setLength(0);
+            line.append(format(record.epochMillis)).append(',')
+                    .append(record.playerName).append(',')
+                    .append(record.questionNumber).append(',')
+                    .append(record.answer).append(',')
+                    .append(record.correctAnswer).append(',')
+                    .append(record.timeTaken).append('\n');
+            csvWriter.append(line);
+        }
+    }
+
+    private String format(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != timestampSecond) {
+            timestampSecond = second;
+            secondTimestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                    .format(TIMESTAMP_FORMAT);
         }
+        return secondTimestamp;
     }
 
-    public void close() {
+    public synchronized void close() {
+        closed = true;
         try {
+            writePending();
             if (csvWriter != null) {
                 csvWriter.close();
+                csvWriter = null;
             }
         } catch (IOException e) {
             System.err.println("Error closing CSV file: " + e.getMessage());
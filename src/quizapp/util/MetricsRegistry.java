@@ -0,0 +1,312 @@
+package quizapp.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters, gauges and histograms for the whole process, read only when
+ * someone asks for them.
+ *
+ * Components keep their own striped counters ({@link java.util.concurrent.atomic.LongAdder})
+ * and {@link LatencySketch} histograms on their hot paths and register a
+ * view of them here. Recording therefore costs a striped add or a sketch
+ * update, and nothing is summed or sorted until the metrics are scraped,
+ * either as Prometheus-style text from {@link #writeText} or as the
+ * attributes of a single JMX MBean.
+ *
+ * Series are named like "quiz_answers_total" and told apart by label pairs
+ * such as room and message type.
+ */
+public class MetricsRegistry {
+
+    public static final MetricsRegistry SHARED = new MetricsRegistry();
+    public static final String OBJECT_NAME = "quizapp:type=Metrics";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final String[] QUANTILE_LABELS = {"p50", "p90", "p99"};
+
+    private enum Kind {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Kind kind;
+        final Map<String, Series> series = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Kind kind) {
+            this.name = name;
+            this.help = help;
+            this.kind = kind;
+        }
+    }
+
+    private static final class Series {
+        final String[] labels;
+        final LongSupplier value;
+        final Supplier<LatencySketch> sketch;
+
+        Series(String[] labels, LongSupplier value, Supplier<LatencySketch> sketch) {
+            this.labels = labels;
+            this.value = value;
+            this.sketch = sketch;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+    private boolean mbeanRegistered;
+
+    /**
+     * Registers a value that only goes up, such as a LongAdder's sum.
+     * Labels are name/value pairs.
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        add(name, help, Kind.COUNTER, new Series(labels, value, null));
+    }
+
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        add(name, help, Kind.GAUGE, new Series(labels, value, null));
+    }
+
+    public void histogram(String name, String help, LatencySketch sketch, String... labels) {
+        histogram(name, help, () -> sketch, labels);
+    }
+
+    /**
+     * Registers a histogram read through a supplier, e.g. one that merges
+     * per-thread sketches so recording threads never share one.
+     */
+    public void histogram(String name, String help, Supplier<LatencySketch> sketch, String... labels) {
+        add(name, help, Kind.HISTOGRAM, new Series(labels, null, sketch));
+    }
+
+    private void add(String name, String help, Kind kind, Series series) {
+        if (series.labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs: " + Arrays.toString(series.labels));
+        }
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, kind));
+        if (family.kind != kind) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.kind);
+        }
+        family.series.put(labelText(series.labels), series);
+    }
+
+    /**
+     * Removes every series carrying all of the given label pairs, e.g. all
+     * metrics of a room that has closed.
+     */
+    public void unregister(String... labels) {
+        for (Family family : families.values()) {
+            family.series.values().removeIf(series -> hasLabels(series.labels, labels));
+        }
+    }
+
+    private static boolean hasLabels(String[] labels, String[] wanted) {
+        for (int i = 0; i + 1 < wanted.length; i += 2) {
+            boolean found = false;
+            for (int j = 0; j + 1 < labels.length; j += 2) {
+                if (labels[j].equals(wanted[i]) && labels[j + 1].equals(wanted[i + 1])) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes every series in the Prometheus text exposition format.
+     * Histograms are written as summaries with p50, p90 and p99, plus their
+     * count and max.
+     */
+    public void writeText(StringBuilder out) {
+        for (Family family : families.values()) {
+            if (family.series.isEmpty()) {
+                continue;
+            }
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ')
+                    .append(family.kind == Kind.HISTOGRAM ? "summary" : family.kind.name().toLowerCase()).append('\n');
+            for (Map.Entry<String, Series> entry : family.series.entrySet()) {
+                Series series = entry.getValue();
+                if (series.sketch == null) {
+                    out.append(family.name).append(entry.getKey()).append(' ')
+                            .append(series.value.getAsLong()).append('\n');
+                    continue;
+                }
+                LatencySketch sketch = series.sketch.get();
+                for (double quantile : QUANTILES) {
+                    out.append(family.name).append(withLabel(series.labels, "quantile", String.valueOf(quantile)))
+                            .append(' ').append(sketch.quantile(quantile)).append('\n');
+                }
+                out.append(family.name).append("_count").append(entry.getKey()).append(' ')
+                        .append(sketch.getCount()).append('\n');
+                out.append(family.name).append("_max").append(entry.getKey()).append(' ')
+                        .append(sketch.getMax()).append('\n');
+            }
+        }
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        writeText(out);
+        return out.toString();
+    }
+
+    /**
+     * Publishes the registry on the platform MBean server. Safe to call
+     * more than once.
+     */
+    public synchronized void registerMBean() {
+        if (mbeanRegistered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+            mbeanRegistered = true;
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean: " + e.getMessage());
+        }
+    }
+
+    private static String labelText(String[] labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"").append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    private static String withLabel(String[] labels, String name, String value) {
+        String[] extended = Arrays.copyOf(labels, labels.length + 2);
+        extended[labels.length] = name;
+        extended[labels.length + 1] = value;
+        return labelText(extended);
+    }
+
+    /**
+     * Exposes each counter and gauge as a long attribute named after the
+     * series, and each histogram as .p50, .p90, .p99, .count and .max
+     * attributes. The attribute list follows the series registered at the
+     * time it is asked for.
+     */
+    private class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Long value = read(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        private Long read(String attribute) {
+            for (Family family : families.values()) {
+                if (!attribute.startsWith(family.name)) {
+                    continue;
+                }
+                for (Map.Entry<String, Series> entry : family.series.entrySet()) {
+                    String key = family.name + entry.getKey();
+                    Series series = entry.getValue();
+                    if (series.sketch == null) {
+                        if (attribute.equals(key)) {
+                            return series.value.getAsLong();
+                        }
+                    } else if (attribute.startsWith(key + ".")) {
+                        String part = attribute.substring(key.length() + 1);
+                        LatencySketch sketch = series.sketch.get();
+                        for (int i = 0; i < QUANTILES.length; i++) {
+                            if (part.equals(QUANTILE_LABELS[i])) {
+                                return sketch.quantile(QUANTILES[i]);
+                            }
+                        }
+                        if (part.equals("count")) {
+                            return sketch.getCount();
+                        }
+                        if (part.equals("max")) {
+                            return sketch.getMax();
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Long value = read(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("No operations");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Family family : families.values()) {
+                for (String labels : family.series.keySet()) {
+                    String key = family.name + labels;
+                    if (family.kind != Kind.HISTOGRAM) {
+                        attributes.add(new MBeanAttributeInfo(key, "long", family.help, true, false, false));
+                        continue;
+                    }
+                    for (String part : new String[] {"p50", "p90", "p99", "count", "max"}) {
+                        attributes.add(new MBeanAttributeInfo(key + "." + part, "long", family.help, true, false, false));
+                    }
+                }
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Quiz server metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
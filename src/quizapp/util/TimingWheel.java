@@ -0,0 +1,335 @@
+package quizapp.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel shared by every room on the server: question
+ * deadlines, transitions, keep-alive sweeps and handshake deadlines all run
+ * from one wheel thread instead of a timer thread per room.
+ *
+ * The wheel has five levels of 64 slots over a 1ms tick, covering about
+ * twelve days. A timeout goes into the lowest level whose span reaches its
+ * deadline; when a lower level wraps, the matching slot of the level above
+ * is cascaded down. Scheduling and cancelling from other threads go through
+ * lock-free queues the wheel thread drains every tick, and each is O(1):
+ * a timeout is linked into or out of a slot's list in place.
+ *
+ * Timeouts never fire before their deadline on the monotonic clock. Expired
+ * tasks run on a small worker pool so a slow task cannot hold the wheel up,
+ * and how late each one starts is recorded as firing jitter. That pool is
+ * shared by every room, so tasks must not block on sockets, disk or
+ * contended locks; such work is handed to an executor of its own. While nothing
+ * is scheduled the wheel thread parks instead of ticking.
+ */
+public class TimingWheel {
+
+    public static final TimingWheel SHARED = start(TimeUnit.MILLISECONDS.toNanos(1),
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long MAX_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int FIRED = 2;
+    private static final Log LOG = Log.get(TimingWheel.class);
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final ExecutorService workers;
+    private final Thread wheelThread;
+    // Firing jitter in microseconds
+    private final LatencySketch firingJitter = new LatencySketch();
+    private final AtomicLong firedCount = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    // Only touched on the wheel thread
+    private long currentTick;
+    private int scheduledCount;
+
+    /**
+     * A scheduled task. Cancelling it is O(1) and stops a repeating task
+     * from being scheduled again.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long periodNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private volatile long deadlineNanos;
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos, long periodNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Returns true if this call cancelled the task before it ran (or,
+         * for a repeating task, before it ran again).
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                cancelled.add(this);
+                wake();
+                return true;
+            }
+            return periodNanos > 0 && state.compareAndSet(FIRED, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+
+        private void fire() {
+            long lateMicros = (System.nanoTime() - deadlineNanos) / 1000;
+            firingJitter.record(lateMicros);
+            firedCount.incrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.error("Error in scheduled task", e);
+            }
+            if (periodNanos > 0) {
+                long next = deadlineNanos + periodNanos;
+                long now = System.nanoTime();
+                if (next <= now) {
+                    // Fell behind; skip the missed runs rather than replay them
+                    next += ((now - next) / periodNanos + 1) * periodNanos;
+                }
+                deadlineNanos = next;
+                if (state.compareAndSet(FIRED, PENDING)) {
+                    added.add(this);
+                    wake();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a wheel with the given tick and number of workers, and starts
+     * its thread.
+     */
+    public static TimingWheel start(long tickNanos, int workerCount) {
+        TimingWheel wheel = new TimingWheel(tickNanos, workerCount);
+        wheel.wheelThread.start();
+        return wheel;
+    }
+
+    private TimingWheel(long tickNanos, int workerCount) {
+        this.tickNanos = Math.max(1, tickNanos);
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            Thread thread = new Thread(runnable, "timing-wheel-worker-" + workerIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheelThread = new Thread(this::run, "timing-wheel");
+        this.wheelThread.setDaemon(true);
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(System.nanoTime() + unit.toNanos(Math.max(0, delay)), task);
+    }
+
+    /**
+     * Schedules a task for an absolute time on the {@link System#nanoTime()}
+     * clock.
+     */
+    public Timeout scheduleAt(long deadlineNanos, Runnable task) {
+        return add(new Timeout(task, deadlineNanos, 0));
+    }
+
+    /**
+     * Runs a task every period, the first time one period from now. Runs
+     * never overlap; if one overruns, the runs it missed are skipped.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long period, TimeUnit unit) {
+        long periodNanos = Math.max(tickNanos, unit.toNanos(period));
+        return add(new Timeout(task, System.nanoTime() + periodNanos, periodNanos));
+    }
+
+    private Timeout add(Timeout timeout) {
+        if (!running) {
+            throw new RejectedExecutionException("Timing wheel is shut down");
+        }
+        added.add(timeout);
+        wake();
+        return timeout;
+    }
+
+    private void wake() {
+        if (idle) {
+            LockSupport.unpark(wheelThread);
+        }
+    }
+
+    /**
+     * How late tasks started after their deadline, in microseconds.
+     */
+    public LatencySketch getFiringJitter() {
+        return firingJitter;
+    }
+
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(wheelThread);
+        workers.shutdown();
+    }
+
+    private void run() {
+        while (running) {
+            drainQueues();
+            if (scheduledCount == 0) {
+                idle = true;
+                if (added.isEmpty() && cancelled.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                // Nothing is on the wheel, so it can jump straight to now
+                currentTick = Math.max(currentTick, tickAt(System.nanoTime()));
+                continue;
+            }
+            long wait = startNanos + currentTick * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            drainQueues();
+            processTick(currentTick);
+            currentTick++;
+        }
+    }
+
+    private void drainQueues() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() == PENDING) {
+                timeout.deadlineTick = Math.max(currentTick, ceilTick(timeout.deadlineNanos));
+                place(timeout);
+                scheduledCount++;
+            }
+        }
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.level >= 0) {
+                unlink(timeout);
+                scheduledCount--;
+            }
+        }
+    }
+
+    private void processTick(long tick) {
+        for (int level = 1; level < LEVELS && (tick & ((1L << (SLOT_BITS * level)) - 1)) == 0; level++) {
+            cascade(level, (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        }
+
+        int index = (int) tick & SLOT_MASK;
+        Timeout timeout = slots[0][index];
+        slots[0][index] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.level = -1;
+            scheduledCount--;
+            if (timeout.state.compareAndSet(PENDING, FIRED)) {
+                dispatch(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void dispatch(Timeout timeout) {
+        try {
+            workers.execute(timeout::fire);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Timeout timeout = slots[level][index];
+        slots[level][index] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    /**
+     * Links a timeout into the lowest level whose span still reaches its
+     * deadline. Deadlines beyond the top level park in its furthest slot
+     * and are placed again when that slot cascades.
+     */
+    private void place(Timeout timeout) {
+        long tick = Math.min(timeout.deadlineTick, currentTick + MAX_TICKS - 1);
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        Timeout head = slots[level][index];
+        timeout.level = level;
+        timeout.slot = index;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[level][index] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private long tickAt(long nanos) {
+        return Math.max(0, (nanos - startNanos) / tickNanos);
+    }
+
+    private long ceilTick(long nanos) {
+        long elapsed = nanos - startNanos;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+}